@@ -0,0 +1,125 @@
+import java.io.*;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter over every account number, so lookups of numbers that were never
+// issued are answered from memory without touching the account store. "Absent" is
+// exact; "present" is wrong with probability about bank.bloom.fpp and is confirmed
+// against the store by the caller.
+//
+//   -Dbank.bloom.expected=N   accounts to size for (default 1,000,000); the filter is
+//                             rebuilt at twice the size when the book outgrows it
+//   -Dbank.bloom.fpp=P        target false positive rate (default 0.01)
+class AccountNumberFilter {
+    private static final int MAGIC = 0x42414e46; // "BANF"
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private volatile long inserted;
+
+    private AccountNumberFilter(long capacity, long bitCount, int hashCount) {
+        this.capacity = capacity;
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    static AccountNumberFilter create(long capacity, double falsePositiveRate) {
+        long bitCount = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        return new AccountNumberFilter(capacity, bitCount, hashCount);
+    }
+
+    static AccountNumberFilter build(Collection<String> accountNumbers) {
+        long expected = Long.getLong("bank.bloom.expected", 1_000_000);
+        double fpp = Double.parseDouble(System.getProperty("bank.bloom.fpp", "0.01"));
+        AccountNumberFilter filter = create(Math.max(expected, 2L * accountNumbers.size()), fpp);
+        for (String accountNumber : accountNumbers) {
+            filter.add(accountNumber);
+        }
+        return filter;
+    }
+
+    public boolean mightContain(String accountNumber) {
+        long hash = hash(accountNumber);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public void add(String accountNumber) {
+        long hash = hash(accountNumber);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // lost a race with another bit in the same word, retry
+            }
+        }
+        synchronized (this) {
+            inserted++;
+        }
+    }
+
+    // Numbers added so far; compared with the store on load to detect a stale file
+    public long getInserted() { return inserted; }
+    public boolean isFull() { return inserted > capacity; }
+
+    public void writeTo(File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(capacity);
+            out.writeLong(bitCount);
+            out.writeInt(hashCount);
+            out.writeLong(inserted);
+            for (int i = 0; i < bits.length(); i++) {
+                out.writeLong(bits.get(i));
+            }
+        }
+        BankSystem.replace(tempFile, file);
+    }
+
+    static AccountNumberFilter readFrom(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an account filter: " + file);
+            AccountNumberFilter filter = new AccountNumberFilter(in.readLong(), in.readLong(), in.readInt());
+            filter.inserted = in.readLong();
+            for (int i = 0; i < filter.bits.length(); i++) {
+                filter.bits.set(i, in.readLong());
+            }
+            return filter;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Account filter: %,d numbers, %,d KB, %d hashes, capacity %,d",
+                inserted, bits.length() * 8L / 1024, hashCount, capacity);
+    }
+
+    // 64-bit FNV-1a with a murmur finalizer; the two halves seed double hashing
+    private static long hash(String accountNumber) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < accountNumber.length(); i++) {
+            hash ^= accountNumber.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
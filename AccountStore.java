@@ -0,0 +1,322 @@
+import java.io.*;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+// Tiered account store. Hot accounts live in a bounded in-memory cache; the rest are
+// cold, one serialized file per account under the cold directory, and are paged in on
+// first use. Evicted accounts are written back only if they changed since they were
+// last read from or written to disk.
+//
+//   -Dbank.cache.maxAccounts=N   resident account limit (0 = unbounded, the default)
+//   -Dbank.cache.maxMB=N         estimated resident heap budget (0 = unbounded)
+//   -Dbank.cache.dir=path        cold tier directory (default <dataFile>.accounts)
+//
+// Hit, miss and eviction counts and page-in/write-back latencies go to BankMetrics.
+class AccountStore {
+    // Rough heap cost of an account and of each Transaction it holds, for the byte budget
+    private static final long ACCOUNT_BYTES = 512;
+    private static final long TRANSACTION_BYTES = 160;
+    // Hits remembered per entry; each one buys another pass through the eviction queue
+    private static final int MAX_HITS = 3;
+
+    private final File coldDir;
+    private final int maxAccounts;
+    private final long maxBytes;
+    private final BankEventBus eventBus;
+    private final ReadWriteLock stateLock;
+    private final CopyOnWriteSnapshot backup;
+    private final TransactionArchive archive;
+
+    private final Set<String> accountNumbers = new HashSet<>();
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> resident = new LinkedHashMap<>(16, 0.75f, true);
+    // Evicted accounts someone still holds (a logged-in screen, a running transfer);
+    // reused on the next lookup so there is never a second copy of a live account
+    private final Map<String, EvictedRef> evicted = new ConcurrentHashMap<>();
+    private final ReferenceQueue<BankAccount> collected = new ReferenceQueue<>();
+    private long residentBytes;
+
+    private static class Entry {
+        final BankAccount account;
+        long bytes;
+        int hits;
+
+        Entry(BankAccount account) {
+            this.account = account;
+            this.bytes = weigh(account);
+        }
+    }
+
+    private static class EvictedRef extends WeakReference<BankAccount> {
+        final String accountNumber;
+
+        EvictedRef(BankAccount account, ReferenceQueue<BankAccount> queue) {
+            super(account, queue);
+            this.accountNumber = account.getAccountNumber();
+        }
+    }
+
+    AccountStore(File coldDir, BankEventBus eventBus, ReadWriteLock stateLock, CopyOnWriteSnapshot backup,
+                 TransactionArchive archive) {
+        this.coldDir = coldDir;
+        this.maxAccounts = Integer.getInteger("bank.cache.maxAccounts", 0);
+        this.maxBytes = Long.getLong("bank.cache.maxMB", 0) * 1024 * 1024;
+        this.eventBus = eventBus;
+        this.stateLock = stateLock;
+        this.backup = backup;
+        this.archive = archive;
+        // A change to an evicted account that is still in use brings it back, so the
+        // change is written back on its next eviction instead of being lost to GC
+        eventBus.subscribe(event -> {
+            // Runs under the account monitor, so no eviction (and write-back) happens here
+            if (!evicted.isEmpty() && evicted.containsKey(event.getAccountNumber())) {
+                readmit(event.getAccountNumber(), false);
+            }
+        });
+    }
+
+    // Seeds the store from the last snapshot. Cold files written after the snapshot
+    // (evictions since the last save) are newer and win over the snapshot copy.
+    void load(Map<String, BankAccount> snapshot, long snapshotModified) {
+        String[] coldFiles = coldDir.list((dir, name) -> name.endsWith(".acct"));
+        List<BankAccount> victims;
+        synchronized (this) {
+            if (coldFiles != null) {
+                for (String name : coldFiles) {
+                    accountNumbers.add(name.substring(0, name.length() - ".acct".length()));
+                }
+            }
+            for (BankAccount account : snapshot.values()) {
+                accountNumbers.add(account.getAccountNumber());
+                File cold = coldFile(account.getAccountNumber());
+                if (cold.exists() && cold.lastModified() > snapshotModified) continue;
+                account.attach(eventBus, stateLock, backup, archive);
+                account.markDirty();
+                admit(account);
+            }
+            victims = selectVictims();
+        }
+        writeBack(victims);
+    }
+
+    public BankAccount get(String accountNumber) {
+        synchronized (this) {
+            Entry entry = resident.get(accountNumber);
+            if (entry != null) {
+                BankMetrics.get().count("cache.hit");
+                if (entry.hits < MAX_HITS) entry.hits++;
+                // Histories grow while resident, so the weight is refreshed on use
+                long bytes = weigh(entry.account);
+                residentBytes += bytes - entry.bytes;
+                entry.bytes = bytes;
+                return entry.account;
+            }
+            if (!accountNumbers.contains(accountNumber)) return null;
+        }
+        BankMetrics.get().count("cache.miss");
+        BankAccount account = readmit(accountNumber, true);
+        return account != null ? account : pageIn(accountNumber);
+    }
+
+    public synchronized boolean contains(String accountNumber) {
+        return accountNumbers.contains(accountNumber);
+    }
+
+    public synchronized int size() {
+        return accountNumbers.size();
+    }
+
+    public synchronized int residentCount() {
+        return resident.size();
+    }
+
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    // Copy of every known account number, for paging through the whole book
+    public synchronized List<String> accountNumbers() {
+        return new ArrayList<>(accountNumbers);
+    }
+
+    public void put(BankAccount account) {
+        account.attach(eventBus, stateLock, backup, archive);
+        List<BankAccount> victims;
+        synchronized (this) {
+            accountNumbers.add(account.getAccountNumber());
+            admit(account);
+            victims = selectVictims();
+        }
+        writeBack(victims);
+    }
+
+    // Resident accounts go into the snapshot. Evicted accounts still in use that
+    // changed since eviction are written back to the cold tier instead.
+    Map<String, BankAccount> snapshotForSave() {
+        List<BankAccount> changed = new ArrayList<>();
+        Map<String, BankAccount> snapshot = new HashMap<>();
+        synchronized (this) {
+            for (Entry entry : resident.values()) {
+                snapshot.put(entry.account.getAccountNumber(), entry.account);
+            }
+            for (EvictedRef ref : evicted.values()) {
+                BankAccount account = ref.get();
+                if (account != null && account.isDirty()) changed.add(account);
+            }
+        }
+        writeBack(changed);
+        return snapshot;
+    }
+
+    @Override
+    public synchronized String toString() {
+        Map<String, Long> counters = BankMetrics.get().getCounters();
+        long hits = counters.getOrDefault("cache.hit", 0L);
+        long misses = counters.getOrDefault("cache.miss", 0L);
+        return String.format("Accounts: %,d known, %,d resident (~%,d KB), hit ratio %.1f%%, %,d evictions",
+                accountNumbers.size(), resident.size(), residentBytes / 1024,
+                hits + misses == 0 ? 100.0 : hits * 100.0 / (hits + misses),
+                counters.getOrDefault("cache.evict", 0L));
+    }
+
+    private BankAccount readmit(String accountNumber, boolean evict) {
+        List<BankAccount> victims;
+        BankAccount account;
+        synchronized (this) {
+            EvictedRef ref = evicted.remove(accountNumber);
+            account = ref != null ? ref.get() : null;
+            if (account == null) return null;
+            Entry entry = resident.get(accountNumber);
+            if (entry != null) return entry.account;
+            admit(account);
+            victims = evict ? selectVictims() : Collections.emptyList();
+        }
+        writeBack(victims);
+        return account;
+    }
+
+    private BankAccount pageIn(String accountNumber) {
+        long start = System.nanoTime();
+        BankAccount loaded;
+        try (ObjectInputStream ois = new ObjectInputStream(
+                SnapshotCodec.decompress(new FileInputStream(coldFile(accountNumber))))) {
+            loaded = (BankAccount) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            BankMetrics.get().recordFailure("cache.pageIn", "io_error");
+            e.printStackTrace();
+            return null;
+        }
+        loaded.attach(eventBus, stateLock, backup, archive);
+        List<BankAccount> victims;
+        BankAccount account;
+        synchronized (this) {
+            // Another thread may have paged in or readmitted the same account meanwhile
+            Entry entry = resident.get(accountNumber);
+            EvictedRef ref = evicted.get(accountNumber);
+            BankAccount live = ref != null ? ref.get() : null;
+            if (entry != null) {
+                account = entry.account;
+            } else if (live != null) {
+                evicted.remove(accountNumber);
+                account = live;
+                admit(account);
+            } else {
+                account = loaded;
+                admit(account);
+            }
+            victims = selectVictims();
+        }
+        writeBack(victims);
+        BankMetrics.get().record("cache.pageIn", start);
+        return account;
+    }
+
+    private void admit(BankAccount account) {
+        Entry entry = new Entry(account);
+        Entry previous = resident.put(account.getAccountNumber(), entry);
+        if (previous != null) residentBytes -= previous.bytes;
+        residentBytes += entry.bytes;
+    }
+
+    // LRU with a frequency second chance: an entry with remembered hits is moved to
+    // the back of the queue and loses one hit instead of being evicted
+    private List<BankAccount> selectVictims() {
+        expungeCollected();
+        if (!overBudget()) return Collections.emptyList();
+        List<BankAccount> victims = new ArrayList<>();
+        while (overBudget() && !resident.isEmpty()) {
+            Iterator<Entry> eldest = resident.values().iterator();
+            Entry entry = eldest.next();
+            if (entry.hits > 0) {
+                entry.hits--;
+                resident.get(entry.account.getAccountNumber());
+                continue;
+            }
+            eldest.remove();
+            residentBytes -= entry.bytes;
+            evicted.put(entry.account.getAccountNumber(), new EvictedRef(entry.account, collected));
+            victims.add(entry.account);
+            BankMetrics.get().count("cache.evict");
+        }
+        return victims;
+    }
+
+    private boolean overBudget() {
+        return (maxAccounts > 0 && resident.size() > maxAccounts) || (maxBytes > 0 && residentBytes > maxBytes);
+    }
+
+    private void expungeCollected() {
+        EvictedRef ref;
+        while ((ref = (EvictedRef) collected.poll()) != null) {
+            evicted.remove(ref.accountNumber, ref);
+        }
+    }
+
+    // Runs outside the store monitor; takes the shared lock then the account monitor,
+    // the same order postings use
+    private void writeBack(List<BankAccount> accounts) {
+        for (BankAccount account : accounts) {
+            if (!account.isDirty()) continue;
+            long start = System.nanoTime();
+            Lock shared = stateLock.readLock();
+            shared.lock();
+            try {
+                synchronized (account) {
+                    writeColdFile(account);
+                    account.markClean();
+                }
+                BankMetrics.get().record("cache.writeBack", start);
+            } catch (IOException e) {
+                BankMetrics.get().recordFailure("cache.writeBack", "io_error");
+                e.printStackTrace();
+            } finally {
+                shared.unlock();
+            }
+        }
+    }
+
+    private void writeColdFile(BankAccount account) throws IOException {
+        if (!coldDir.isDirectory() && !coldDir.mkdirs()) {
+            throw new IOException("Cannot create " + coldDir);
+        }
+        File target = coldFile(account.getAccountNumber());
+        File tempFile = new File(coldDir, account.getAccountNumber() + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(SnapshotCodec.compress(new FileOutputStream(tempFile)))) {
+            oos.writeObject(account);
+        }
+        // The old cold file may be the only copy of the account, so it is never deleted first
+        BankSystem.replace(tempFile, target);
+    }
+
+    private File coldFile(String accountNumber) {
+        return new File(coldDir, accountNumber + ".acct");
+    }
+
+    private static long weigh(BankAccount account) {
+        return ACCOUNT_BYTES + TRANSACTION_BYTES * account.getTransactions().size();
+    }
+}
@@ -0,0 +1,398 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+class BankAccount implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int STATEMENT_CHUNK = 1024;
+    private String accountNumber;
+    private String name;
+    private String address;
+    private String phone;
+    private double balance;
+    private String password;
+    private List<Transaction> transactions;
+    private Map<String, MonthlyAggregate> monthlyAggregates;
+    private String lastEndOfDayDate;
+    // Transactions moved to the archive, and the balance before the first one still live
+    private long archivedCount;
+    private double openingBalance;
+    private transient BankEventBus eventBus;
+    private transient ReadWriteLock stateLock;
+    private transient CopyOnWriteSnapshot snapshot;
+    private transient TransactionArchive archive;
+    // Set only on point-in-time copies, which share the live history up to historyLength
+    private transient boolean sharesHistory;
+    private transient int historyLength;
+    // Changed since last written to or read from the account store's cold tier
+    private transient volatile boolean dirty;
+
+    public BankAccount(String accountNumber, String name, String address, String phone, double balance, String password) {
+        this.accountNumber = accountNumber;
+        this.name = name;
+        this.address = address;
+        this.phone = phone;
+        this.balance = balance;
+        this.password = hashPassword(password);
+        this.transactions = new ArrayList<>();
+        this.monthlyAggregates = new HashMap<>();
+        this.addTransaction("Account opened", balance, balance);
+    }
+
+    public String getAccountNumber() { return accountNumber; }
+    public String getName() { return name; }
+    public synchronized void setName(String name) { beforeWrite(); this.name = name; dirty = true; publish(BankEvent.Type.PROFILE_UPDATED, null); }
+    public String getAddress() { return address; }
+    public synchronized void setAddress(String address) { beforeWrite(); this.address = address; dirty = true; publish(BankEvent.Type.PROFILE_UPDATED, null); }
+    public String getPhone() { return phone; }
+    public synchronized void setPhone(String phone) { beforeWrite(); this.phone = phone; dirty = true; publish(BankEvent.Type.PROFILE_UPDATED, null); }
+    public double getBalance() { return balance; }
+
+    // Links the account to its owning BankSystem's change stream, lock, backup snapshot
+    // and history archive
+    void attach(BankEventBus eventBus, ReadWriteLock stateLock, CopyOnWriteSnapshot snapshot,
+                TransactionArchive archive) {
+        this.eventBus = eventBus;
+        this.stateLock = stateLock;
+        this.snapshot = snapshot;
+        this.archive = archive;
+    }
+
+    // Every mutator calls this under the account monitor before changing anything
+    private void beforeWrite() {
+        CopyOnWriteSnapshot current = snapshot;
+        if (current != null && current.isActive()) {
+            current.preserve(this);
+        }
+    }
+
+    // Copy of the current state that shares the append-only history; only the length
+    // is recorded, so taking it costs the same however long the history is
+    synchronized BankAccount pointInTimeCopy() {
+        BankAccount copy = new BankAccount();
+        copy.accountNumber = accountNumber;
+        copy.name = name;
+        copy.address = address;
+        copy.phone = phone;
+        copy.balance = balance;
+        copy.password = password;
+        copy.lastEndOfDayDate = lastEndOfDayDate;
+        copy.archive = archive;
+        copy.archivedCount = archivedCount;
+        copy.openingBalance = openingBalance;
+        copy.monthlyAggregates = new HashMap<>();
+        monthlyAggregates.forEach((month, aggregate) -> copy.monthlyAggregates.put(month, aggregate.copy()));
+        copy.transactions = transactions;
+        copy.sharesHistory = true;
+        copy.historyLength = transactions.size();
+        return copy;
+    }
+
+    // Detaches a point-in-time copy from the live history; the caller holds the live
+    // account's monitor, which guards the shared list
+    BankAccount materialize() {
+        if (sharesHistory) {
+            transactions = new ArrayList<>(transactions.subList(0, historyLength));
+            sharesHistory = false;
+        }
+        return this;
+    }
+
+    // Folds the archived history back into a detached copy, for backups and standbys
+    BankAccount withArchivedHistory() throws IOException {
+        if (archivedCount > 0) {
+            List<Transaction> full = archive.read(accountNumber, archivedCount, null, null);
+            full.addAll(transactions);
+            transactions = full;
+            archivedCount = 0;
+            openingBalance = 0;
+        }
+        return this;
+    }
+
+    private BankAccount() {
+    }
+
+    public long getArchivedCount() { return archivedCount; }
+    public double getOpeningBalance() { return openingBalance; }
+
+    // Full history dated within the inclusive "yyyy-MM-dd" bounds (either may be null),
+    // reading archived periods from the archive. End-of-day entries carry their business
+    // date, so a catch-up run leaves the history only mostly in date order.
+    public List<Transaction> getStatement(String fromDate, String toDate) throws IOException {
+        List<Transaction> statement = new ArrayList<>();
+        forEachInStatement(fromDate, toDate, statement::add);
+        return statement;
+    }
+
+    // As getStatement, but streamed: archived segments one at a time, then the live list
+    // in chunks copied under the monitor, so only a chunk is ever held. The live list is
+    // replaced rather than trimmed when history is archived, so the one captured here
+    // stays consistent with the captured archived count. Returns the rows handed over.
+    public <E extends Exception> long forEachInStatement(String fromDate, String toDate, TransactionSink<E> sink)
+            throws IOException, E {
+        long archived;
+        List<Transaction> live;
+        int liveCount;
+        synchronized (this) {
+            archived = archivedCount;
+            live = transactions;
+            liveCount = transactions.size();
+        }
+        long rows = archived > 0 && archive != null ? archive.forEach(accountNumber, archived, fromDate, toDate, sink) : 0;
+        List<Transaction> chunk = new ArrayList<>(Math.min(liveCount, STATEMENT_CHUNK));
+        for (int next = 0; next < liveCount; next += chunk.size()) {
+            chunk.clear();
+            synchronized (this) {
+                chunk.addAll(live.subList(next, Math.min(liveCount, next + STATEMENT_CHUNK)));
+            }
+            for (Transaction transaction : chunk) {
+                if (transaction.isDatedWithin(fromDate, toDate)) {
+                    sink.accept(transaction);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Live transactions dated before cutoffDate, always leaving the latest one live
+    synchronized List<Transaction> archivablePrefix(String cutoffDate) {
+        int count = 0;
+        while (count < transactions.size() - 1 && transactions.get(count).getDate().compareTo(cutoffDate) < 0) {
+            count++;
+        }
+        return new ArrayList<>(transactions.subList(0, count));
+    }
+
+    // Drops a prefix once it is safely in the archive. The live list is replaced rather
+    // than trimmed, so point-in-time copies sharing the old list stay intact.
+    synchronized boolean dropArchived(long expectedArchivedCount, List<Transaction> prefix) {
+        int count = prefix.size();
+        if (count == 0 || archivedCount != expectedArchivedCount || transactions.size() <= count
+                || transactions.get(count - 1) != prefix.get(count - 1)) {
+            return false;
+        }
+        beforeWrite();
+        for (Transaction transaction : prefix) {
+            openingBalance += transaction.getAmount();
+        }
+        transactions = new ArrayList<>(transactions.subList(count, transactions.size()));
+        archivedCount += count;
+        dirty = true;
+        publish(BankEvent.Type.HISTORY_ARCHIVED, null);
+        return true;
+    }
+
+    boolean isDirty() { return dirty; }
+    void markDirty() { dirty = true; }
+    void markClean() { dirty = false; }
+
+    // Stored hash, for shipping the profile to a replication standby
+    String getPasswordHash() { return password; }
+
+    // Replays a posting shipped from a replication primary. index counts archived
+    // transactions too. Postings arrive in order, so one already in the history is a
+    // replay after a reconnect and is ignored.
+    synchronized void applyReplicatedPosting(long index, Transaction transaction, double balance) {
+        long next = archivedCount + transactions.size();
+        if (index < next) return;
+        if (index > next) {
+            throw new IllegalStateException("Posting " + index + " of " + accountNumber + " arrived before " + next);
+        }
+        beforeWrite();
+        this.balance = balance;
+        addTransaction(transaction);
+        publish(BankEvent.Type.BALANCE_CHANGED, null);
+    }
+
+    synchronized void applyReplicatedProfile(String name, String address, String phone, String passwordHash,
+                                             String lastEndOfDayDate) {
+        beforeWrite();
+        this.name = name;
+        this.address = address;
+        this.phone = phone;
+        this.password = passwordHash;
+        this.lastEndOfDayDate = lastEndOfDayDate;
+        dirty = true;
+        publish(BankEvent.Type.PROFILE_UPDATED, null);
+    }
+
+    public boolean verifyPassword(String inputPassword) {
+        return this.password.equals(hashPassword(inputPassword));
+    }
+
+    public synchronized void changePassword(String newPassword) {
+        beforeWrite();
+        this.password = hashPassword(newPassword);
+        dirty = true;
+        publish(BankEvent.Type.PROFILE_UPDATED, null);
+    }
+
+    public void deposit(double amount) {
+        deposit("Deposit", amount, null);
+    }
+
+    void deposit(String description, double amount, String reference) {
+        long start = System.nanoTime();
+        BankJfrEvents.Posting event = BankJfrEvents.posting();
+        post(description, amount, false, reference, null);
+        BankMetrics.get().record("deposit", start);
+        commitPostingEvent(event, "deposit", amount, amount > 0);
+    }
+
+    // Outcome of a customer withdrawal, so transfers can report why a debit was refused
+    enum WithdrawalResult { COMPLETED, INSUFFICIENT_FUNDS, LIMIT_EXCEEDED, UNKNOWN_ACCOUNT }
+
+    public boolean withdraw(double amount) {
+        return tryWithdraw("Withdrawal", amount, null) == WithdrawalResult.COMPLETED;
+    }
+
+    WithdrawalResult tryWithdraw(String description, double amount, String reference) {
+        long start = System.nanoTime();
+        BankJfrEvents.Posting event = BankJfrEvents.posting();
+        WithdrawalResult result;
+        VelocityGuard guard = VelocityGuard.get();
+        if (guard.admit(accountNumber, amount) == VelocityGuard.Decision.BLOCK) {
+            result = WithdrawalResult.LIMIT_EXCEEDED;
+            BankMetrics.get().recordFailure("withdraw", "velocity_limit");
+        } else if (post(description, amount, true, reference, null)) {
+            result = WithdrawalResult.COMPLETED;
+        } else {
+            result = WithdrawalResult.INSUFFICIENT_FUNDS;
+            guard.release(accountNumber, amount);
+            BankMetrics.get().recordFailure("withdraw", "insufficient_funds");
+        }
+        BankMetrics.get().record("withdraw", start);
+        commitPostingEvent(event, "withdraw", amount, result == WithdrawalResult.COMPLETED);
+        return result;
+    }
+
+    private void commitPostingEvent(BankJfrEvents.Posting event, String operation, double amount, boolean succeeded) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.accountNumber = accountNumber;
+            event.amount = amount;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    public void credit(String description, double amount) {
+        post(description, amount, false, null, null);
+    }
+
+    public boolean debit(String description, double amount) {
+        return post(description, amount, true, null, null);
+    }
+
+    // End-of-day entries are dated at the close of the business day they belong to,
+    // not when the batch happens to run
+    void credit(String description, double amount, String businessDate) {
+        post(description, amount, false, null, businessDate);
+    }
+
+    boolean debit(String description, double amount, String businessDate) {
+        return post(description, amount, true, null, businessDate);
+    }
+
+    // Postings hold the shared side of the owning BankSystem's lock, so saveData()
+    // never serializes an account halfway through a change
+    private boolean post(String description, double amount, boolean isDebit, String reference, String businessDate) {
+        Lock shared = stateLock != null ? stateLock.readLock() : null;
+        if (shared != null) shared.lock();
+        try {
+            synchronized (this) {
+                if (amount <= 0 || (isDebit && this.balance < amount)) return false;
+                double signedAmount = isDebit ? -amount : amount;
+                beforeWrite();
+                this.balance += signedAmount;
+                this.addTransaction(businessDate != null
+                        ? new Transaction(businessDate + " 23:59:59", description, signedAmount, this.balance, reference)
+                        : new Transaction(description, signedAmount, this.balance, reference));
+                publish(BankEvent.Type.BALANCE_CHANGED, null);
+                return true;
+            }
+        } finally {
+            if (shared != null) shared.unlock();
+        }
+    }
+
+    public String getLastEndOfDayDate() { return lastEndOfDayDate; }
+    synchronized void setLastEndOfDayDate(String businessDate) {
+        beforeWrite();
+        this.lastEndOfDayDate = businessDate;
+        dirty = true;
+        publish(BankEvent.Type.PROFILE_UPDATED, null);
+    }
+
+    public void addTransaction(String description, double amount, double balance) {
+        addTransaction(new Transaction(description, amount, balance));
+    }
+
+    private synchronized void addTransaction(Transaction transaction) {
+        beforeWrite();
+        transactions.add(transaction);
+        recordAggregate(transaction);
+        dirty = true;
+        publish(BankEvent.Type.TRANSACTION_APPENDED, transaction);
+    }
+
+    private void recordAggregate(Transaction transaction) {
+        String month = MonthlyAggregate.monthOf(transaction.getDate());
+        monthlyAggregates.computeIfAbsent(month, MonthlyAggregate::new).record(transaction);
+    }
+
+    public MonthlyAggregate getMonthlyAggregate(String month) {
+        MonthlyAggregate aggregate = monthlyAggregates.get(month);
+        return aggregate != null ? aggregate : new MonthlyAggregate(month);
+    }
+
+    public Map<String, MonthlyAggregate> getMonthlyAggregates() {
+        return Collections.unmodifiableMap(monthlyAggregates);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Data files written before aggregates existed are rebuilt once from history
+        if (monthlyAggregates == null) {
+            monthlyAggregates = new HashMap<>();
+            for (Transaction transaction : transactions) {
+                recordAggregate(transaction);
+            }
+        }
+    }
+
+    private void publish(BankEvent.Type type, Transaction transaction) {
+        if (eventBus != null) {
+            eventBus.publish(new BankEvent(type, accountNumber, balance, transaction, transactions.size() - 1,
+                    archivedCount));
+        }
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Account Number: %s\nName: %s\nAddress: %s\nPhone: %s\nBalance: Rs.%,.2f",
+                accountNumber, name, address, phone, balance);
+    }
+
+    private String hashPassword(String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hashedBytes = md.digest(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hashedBytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Hashing algorithm not available", e);
+        }
+    }
+}
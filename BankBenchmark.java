@@ -0,0 +1,173 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+// Microbenchmark harness for the banking engine. Each operation is measured over
+// time-boxed iterations after a warmup, for every combination of account count and
+// history length. Results can be recorded to a CSV baseline and compared later.
+//
+//   java -Dbench.accounts=1000,100000 -Dbench.history=10,100 BankBenchmark
+//   java -Dbench.record=baseline.csv BankBenchmark
+//   java -Dbench.baseline=baseline.csv -Dbench.ops=deposit,transfer BankBenchmark
+public class BankBenchmark {
+
+    interface Operation {
+        Object run(int i) throws Exception;
+    }
+
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmup", 2);
+    private static final int MEASURE_ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final long ITERATION_NANOS = Long.getLong("bench.iterationMillis", 500) * 1_000_000L;
+    // Combinations above this many seeded transactions are skipped to stay within the heap
+    private static final long MAX_TRANSACTIONS = Long.getLong("bench.maxTransactions", 20_000_000L);
+
+    // Keeps results reachable so the JIT cannot drop the measured work
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        File dataFile = File.createTempFile("bank_bench", ".dat");
+        dataFile.deleteOnExit();
+        new File(dataFile.getPath() + ".tmp").deleteOnExit();
+        System.setProperty("bank.dataFile", dataFile.getPath());
+
+        int[] accountCounts = parseInts(System.getProperty("bench.accounts", "1000,10000,100000,1000000"));
+        int[] historyLengths = parseInts(System.getProperty("bench.history", "10,100"));
+        Set<String> ops = new HashSet<>(Arrays.asList(System.getProperty("bench.ops",
+                "deposit,withdraw,verifyPassword,transfer,register,save,load,statement,pdf").split(",")));
+        Map<String, Double> baseline = readBaseline(System.getProperty("bench.baseline"));
+
+        List<String> results = new ArrayList<>();
+        System.out.printf("%-16s %10s %8s %16s %12s %10s%n",
+                "Benchmark", "Accounts", "History", "ns/op", "ops/s", "vs base");
+        for (int accountCount : accountCounts) {
+            for (int history : historyLengths) {
+                if ((long) accountCount * history > MAX_TRANSACTIONS) {
+                    System.out.printf("Skipping %,d accounts x %,d history (raise -Dbench.maxTransactions)%n",
+                            accountCount, history);
+                    continue;
+                }
+                runSize(accountCount, history, ops, baseline, results);
+            }
+        }
+
+        String record = System.getProperty("bench.record");
+        if (record != null) {
+            results.add(0, "benchmark,accounts,history,ns_per_op");
+            Files.write(new File(record).toPath(), results);
+            System.out.println("Recorded baseline to " + record);
+        }
+    }
+
+    private static void runSize(int accountCount, int history, Set<String> ops,
+                                Map<String, Double> baseline, List<String> results) throws Exception {
+        new File(System.getProperty("bank.dataFile")).delete();
+        BankSystem bankSystem = new BankSystem();
+        BankAccount[] accounts = seed(bankSystem, accountCount, history);
+        bankSystem.saveData();
+        Random random = new Random(42);
+
+        Map<String, Operation> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("deposit", i -> {
+            accounts[random.nextInt(accounts.length)].deposit(1.0);
+            return null;
+        });
+        benchmarks.put("withdraw", i -> accounts[random.nextInt(accounts.length)].withdraw(1.0));
+        benchmarks.put("verifyPassword", i -> accounts[random.nextInt(accounts.length)].verifyPassword("password"));
+        benchmarks.put("transfer", i -> bankSystem.transferFunds(
+                accounts[random.nextInt(accounts.length)].getAccountNumber(),
+                accounts[random.nextInt(accounts.length)].getAccountNumber(), 1.0));
+        benchmarks.put("register", i -> bankSystem.registerAccount("Bench", "Address", "0000000000", 100, "password"));
+        benchmarks.put("save", i -> {
+            bankSystem.saveData();
+            return null;
+        });
+        benchmarks.put("load", i -> new BankSystem());
+        benchmarks.put("statement", i -> formatStatement(accounts[random.nextInt(accounts.length)]));
+        benchmarks.put("pdf", i -> {
+            StatementPdfWriter.write(accounts[random.nextInt(accounts.length)], new ByteArrayOutputStream());
+            return null;
+        });
+
+        for (Map.Entry<String, Operation> entry : benchmarks.entrySet()) {
+            if (!ops.contains(entry.getKey())) continue;
+            double nsPerOp = measure(entry.getValue());
+            String key = entry.getKey() + "," + accountCount + "," + history;
+            Double base = baseline.get(key);
+            System.out.printf("%-16s %,10d %,8d %,16.1f %,12.0f %10s%n",
+                    entry.getKey(), accountCount, history, nsPerOp, 1e9 / nsPerOp,
+                    base == null ? "-" : String.format("%+.1f%%", (nsPerOp - base) / base * 100));
+            results.add(key + "," + nsPerOp);
+        }
+    }
+
+    private static BankAccount[] seed(BankSystem bankSystem, int accountCount, int history) {
+        BankAccount[] accounts = new BankAccount[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            BankAccount account = new BankAccount(String.format("%08d", i), "Customer " + i,
+                    "Address " + i, "0000000000", 1_000_000, "password");
+            // The opening entry counts as the first history item
+            for (int h = 1; h < history; h++) {
+                if (h % 2 == 0) {
+                    account.withdraw(10);
+                } else {
+                    account.deposit(25);
+                }
+            }
+            bankSystem.addAccount(account);
+            accounts[i] = account;
+        }
+        return accounts;
+    }
+
+    // Same layout StatementPanel used before it moved to a table
+    private static String formatStatement(BankAccount account) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-20s %-15s %12s %12s\n", "Date", "Description", "Amount", "Balance"));
+        sb.append("------------------------------------------------------------\n");
+        for (Transaction t : account.getTransactions()) {
+            sb.append(t.toString()).append("\n");
+        }
+        sb.append("------------------------------------------------------------\n");
+        sb.append(String.format("%52s Rs.%,.2f\n", "Current Balance:", account.getBalance()));
+        return sb.toString();
+    }
+
+    // Mean ns/op over the measured iterations; each iteration runs at least one op
+    private static double measure(Operation operation) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(operation);
+        }
+        double total = 0;
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            total += runIteration(operation);
+        }
+        return total / MEASURE_ITERATIONS;
+    }
+
+    private static double runIteration(Operation operation) throws Exception {
+        long start = System.nanoTime();
+        long elapsed;
+        int count = 0;
+        do {
+            sink = operation.run(count++);
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return (double) elapsed / count;
+    }
+
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static Map<String, Double> readBaseline(String file) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        if (file == null) return baseline;
+        for (String line : Files.readAllLines(new File(file).toPath())) {
+            int split = line.lastIndexOf(',');
+            if (line.startsWith("benchmark,")) continue;
+            baseline.put(line.substring(0, split), Double.parseDouble(line.substring(split + 1)));
+        }
+        return baseline;
+    }
+}
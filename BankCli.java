@@ -0,0 +1,270 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+// Command-line entry point for the banking engine. Nothing here touches AWT or
+// Swing, so it starts fast and runs on headless machines.
+public class BankCli {
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length == 0) {
+            usage();
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        int status;
+        try {
+            // Restore replaces the data file and a standby loads its own, so neither loads it here
+            switch (args[0]) {
+                case "restore":
+                    status = restore(args);
+                    break;
+                case "standby":
+                    status = standby(args);
+                    break;
+                default:
+                    status = run(new BankSystem(), args);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            usage();
+            status = 2;
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            status = 1;
+        }
+
+        if (Boolean.getBoolean("bank.cli.timing")) {
+            Runtime runtime = Runtime.getRuntime();
+            System.err.printf("Completed in %.1f ms, heap used %,d KB%n",
+                    (System.nanoTime() - start) / 1_000_000.0,
+                    (runtime.totalMemory() - runtime.freeMemory()) / 1024);
+        }
+        System.exit(status);
+    }
+
+    static int run(BankSystem bankSystem, String[] args) throws IOException {
+        switch (args[0]) {
+            case "register": {
+                String accountNumber = bankSystem.registerAccount(args[1], args[2], args[3],
+                        Double.parseDouble(args[4]), args[5]);
+                System.out.println("Registered account " + accountNumber);
+                return 0;
+            }
+            case "balance": {
+                BankAccount account = login(bankSystem, args[1], args[2]);
+                if (account == null) return 1;
+                System.out.println(account);
+                return 0;
+            }
+            case "deposit": {
+                BankAccount account = login(bankSystem, args[1], args[2]);
+                if (account == null) return 1;
+                account.deposit(Double.parseDouble(args[3]));
+                bankSystem.saveData();
+                System.out.printf("New balance: Rs.%,.2f%n", account.getBalance());
+                return 0;
+            }
+            case "withdraw": {
+                BankAccount account = login(bankSystem, args[1], args[2]);
+                if (account == null) return 1;
+                if (!account.withdraw(Double.parseDouble(args[3]))) {
+                    System.err.println("Insufficient funds");
+                    return 1;
+                }
+                bankSystem.saveData();
+                System.out.printf("New balance: Rs.%,.2f%n", account.getBalance());
+                return 0;
+            }
+            case "transfer": {
+                BankAccount account = login(bankSystem, args[1], args[2]);
+                if (account == null) return 1;
+                if (!bankSystem.transferFunds(args[1], args[3], Double.parseDouble(args[4]))) {
+                    System.err.println("Transfer failed. Check account number or balance.");
+                    return 1;
+                }
+                System.out.printf("New balance: Rs.%,.2f%n", account.getBalance());
+                return 0;
+            }
+            case "statement": {
+                BankAccount account = login(bankSystem, args[1], args[2]);
+                if (account == null) return 1;
+                List<Transaction> statement = account.getStatement(args.length > 3 ? args[3] : null,
+                        args.length > 4 ? args[4] : null);
+                System.out.printf("%-20s %-15s %12s %12s%n", "Date", "Description", "Amount", "Balance");
+                for (Transaction t : statement) {
+                    System.out.println(t);
+                }
+                return 0;
+            }
+            case "export": {
+                String file = args[1];
+                String scope = args.length > 2 ? args[2] : "all";
+                String fromDate = args.length > 3 ? args[3] : null;
+                String toDate = args.length > 4 ? args[4] : null;
+                Collection<BankAccount> accounts;
+                if (scope.equals("all")) {
+                    accounts = bankSystem.getAccounts();
+                } else {
+                    BankAccount account = bankSystem.getAccount(scope);
+                    if (account == null) {
+                        System.err.println("Unknown account " + scope);
+                        return 1;
+                    }
+                    accounts = Collections.singletonList(account);
+                }
+                TransactionCsvExporter.Result result = TransactionCsvExporter.exportAccounts(
+                        accounts, fromDate, toDate, Paths.get(file), file.endsWith(".gz"));
+                System.out.println("Exported " + result);
+                return 0;
+            }
+            case "eod": {
+                String businessDate = args.length > 1 ? args[1] : new SimpleDateFormat("yyyy-MM-dd").format(new Date());
+                EndOfDayEngine engine = new EndOfDayEngine(bankSystem, EndOfDayEngine.defaultRules());
+                System.out.println(engine.run(businessDate));
+                if (Integer.getInteger("bank.retention.days") != null) {
+                    System.out.println(new RetentionJob(bankSystem).run());
+                }
+                return 0;
+            }
+            case "archive": {
+                RetentionJob job = new RetentionJob(bankSystem);
+                RetentionJob.Report report = args.length > 1
+                        ? job.run(RetentionJob.cutoffDate(Integer.parseInt(args[1]))) : job.run();
+                System.out.println(report);
+                return report.getFailed() == 0 ? 0 : 1;
+            }
+            case "audit": {
+                LedgerAudit.Report report = new LedgerAudit(bankSystem).run();
+                System.out.println(report);
+                List<LedgerAudit.Discrepancy> discrepancies = report.getDiscrepancies();
+                for (int i = 0; i < Math.min(20, discrepancies.size()); i++) {
+                    System.out.println("  " + discrepancies.get(i));
+                }
+                if (discrepancies.size() > 20) {
+                    System.out.printf("  ... %,d more%s%n", discrepancies.size() - 20,
+                            args.length > 1 ? " in " + args[1] : "");
+                }
+                if (args.length > 1) {
+                    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(args[1])))) {
+                        out.println(report);
+                        discrepancies.forEach(out::println);
+                    }
+                }
+                return report.isClean() ? 0 : 1;
+            }
+            case "standing":
+                return standing(bankSystem, args);
+            case "stats":
+                System.out.println(bankSystem.getSnapshotStats());
+                System.out.println(bankSystem.getCacheStats());
+                System.out.println(bankSystem.getAccountFilterStats());
+                return 0;
+            case "backup":
+                System.out.println(new HotBackup(bankSystem).backup(new File(args[1])));
+                return 0;
+            default:
+                usage();
+                return 2;
+        }
+    }
+
+    private static int standing(BankSystem bankSystem, String[] args) throws IOException {
+        StandingInstructionScheduler scheduler = new StandingInstructionScheduler(bankSystem);
+        if (args[1].equals("run")) {
+            System.out.println(scheduler.runDue(System.currentTimeMillis()));
+            return 0;
+        }
+        BankAccount account = login(bankSystem, args[2], args[3]);
+        if (account == null) return 1;
+        switch (args[1]) {
+            case "add": {
+                long firstRun = System.currentTimeMillis();
+                if (args.length > 7) {
+                    try {
+                        firstRun = new SimpleDateFormat("yyyy-MM-dd").parse(args[7]).getTime();
+                    } catch (java.text.ParseException e) {
+                        throw new IllegalArgumentException(e.getMessage());
+                    }
+                }
+                StandingInstruction instruction = scheduler.add(args[2], args[4], Double.parseDouble(args[5]),
+                        StandingInstruction.Frequency.valueOf(args[6].toUpperCase()), firstRun,
+                        args.length > 8 ? Integer.parseInt(args[8]) : 0);
+                if (instruction == null) {
+                    System.err.println("Standing instruction rejected. Check account number and amount.");
+                    return 1;
+                }
+                System.out.println("Registered " + instruction);
+                return 0;
+            }
+            case "list":
+                scheduler.list(args[2]).forEach(System.out::println);
+                return 0;
+            case "cancel":
+                if (!scheduler.cancel(args[2], Long.parseLong(args[4]))) {
+                    System.err.println("No such standing instruction on this account");
+                    return 1;
+                }
+                System.out.println("Cancelled standing instruction #" + args[4]);
+                return 0;
+            default:
+                usage();
+                return 2;
+        }
+    }
+
+    private static int restore(String[] args) throws IOException {
+        System.out.println(HotBackup.restore(new File(args[1])));
+        return 0;
+    }
+
+    private static int standby(String[] args) throws IOException {
+        ReplicationStandby standby = new ReplicationStandby(args[1], Integer.parseInt(args[2]));
+        // Ctrl-C stops following and saves what has been applied
+        Runtime.getRuntime().addShutdownHook(new Thread(standby::promote));
+        System.out.printf("Standby following %s:%s from sequence %,d%n", args[1], args[2], standby.getAppliedSequence());
+        standby.run();
+        System.out.printf("Promoted at sequence %,d; the data file is ready for the application%n",
+                standby.getAppliedSequence());
+        return 0;
+    }
+
+    private static BankAccount login(BankSystem bankSystem, String accountNumber, String password) {
+        BankAccount account = bankSystem.login(accountNumber, password);
+        if (account == null) {
+            System.err.println("Invalid account number or password");
+        }
+        return account;
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java BankCli <command> [args]");
+        System.err.println("  register <name> <address> <phone> <initialDeposit> <password>");
+        System.err.println("  balance <account> <password>");
+        System.err.println("  deposit <account> <password> <amount>");
+        System.err.println("  withdraw <account> <password> <amount>");
+        System.err.println("  transfer <fromAccount> <password> <toAccount> <amount>");
+        System.err.println("  statement <account> <password> [fromDate] [toDate]");
+        System.err.println("  export <file.csv[.gz]> [account|all] [fromDate] [toDate]");
+        System.err.println("  eod [yyyy-MM-dd]");
+        System.err.println("  audit [reportFile]");
+        System.err.println("  archive [days]   (moves history older than -Dbank.retention.days, default 365, to the archive)");
+        System.err.println("  standing add <account> <password> <toAccount> <amount> <daily|weekly|monthly> [firstDate] [runs]");
+        System.err.println("  standing list|cancel <account> <password> [id]");
+        System.err.println("  standing run");
+        System.err.println("  stats");
+        System.err.println("  backup <file>");
+        System.err.println("  standby <primaryHost> <port>   (follows a primary started with -Dbank.replication.port;\n"
+                + "                                  both sides need -Dbank.replication.secretFile)");
+        System.err.println("  restore <file>   (application stopped; keeps the old data file as .pre-restore)");
+        System.err.println("Options: -Dbank.dataFile=<path>  -Dbank.cli.timing=true  -Dbank.compression=none|deflate|gzip");
+    }
+}
@@ -0,0 +1,29 @@
+class BankEvent {
+    enum Type { BALANCE_CHANGED, TRANSACTION_APPENDED, PROFILE_UPDATED, ACCOUNT_OPENED, HISTORY_ARCHIVED }
+
+    private final Type type;
+    private final String accountNumber;
+    private final double balance;
+    private final Transaction transaction;
+    private final int transactionIndex;
+    private final long archivedCount;
+
+    public BankEvent(Type type, String accountNumber, double balance, Transaction transaction, int transactionIndex,
+                     long archivedCount) {
+        this.type = type;
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.transaction = transaction;
+        this.transactionIndex = transactionIndex;
+        this.archivedCount = archivedCount;
+    }
+
+    public Type getType() { return type; }
+    public String getAccountNumber() { return accountNumber; }
+    public double getBalance() { return balance; }
+    // Only set for TRANSACTION_APPENDED
+    public Transaction getTransaction() { return transaction; }
+    // Index into the live history, which starts after the archived transactions
+    public int getTransactionIndex() { return transactionIndex; }
+    public long getArchivedCount() { return archivedCount; }
+}
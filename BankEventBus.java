@@ -0,0 +1,25 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class BankEventBus {
+    private final List<BankEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void subscribe(BankEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(BankEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void publish(BankEvent event) {
+        for (BankEventListener listener : listeners) {
+            try {
+                listener.onBankEvent(event);
+            } catch (RuntimeException e) {
+                // A failing subscriber must not break the banking operation
+                e.printStackTrace();
+            }
+        }
+    }
+}
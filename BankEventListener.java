@@ -0,0 +1,3 @@
+interface BankEventListener {
+    void onBankEvent(BankEvent event);
+}
@@ -0,0 +1,137 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder events for banking operations. Call sites take events from the
+// factories below, which allocate only when a recording has that type enabled, so
+// with no recording running each site costs one allocation-free check.
+final class BankJfrEvents {
+    private static final EventType POSTING = EventType.getEventType(Posting.class);
+    private static final EventType TRANSFER = EventType.getEventType(Transfer.class);
+    private static final EventType PERSISTENCE = EventType.getEventType(Persistence.class);
+    private static final EventType STATEMENT = EventType.getEventType(Statement.class);
+    private static final EventType VELOCITY_ALERT = EventType.getEventType(VelocityAlert.class);
+
+    private BankJfrEvents() {
+    }
+
+    // Each returns a begun event, or null when no recording wants the type
+    static Posting posting() {
+        return POSTING.isEnabled() ? begin(new Posting()) : null;
+    }
+
+    static Transfer transfer() {
+        return TRANSFER.isEnabled() ? begin(new Transfer()) : null;
+    }
+
+    static Persistence persistence() {
+        return PERSISTENCE.isEnabled() ? begin(new Persistence()) : null;
+    }
+
+    static Statement statement() {
+        return STATEMENT.isEnabled() ? begin(new Statement()) : null;
+    }
+
+    static VelocityAlert velocityAlert() {
+        return VELOCITY_ALERT.isEnabled() ? begin(new VelocityAlert()) : null;
+    }
+
+    private static <T extends Event> T begin(T event) {
+        event.begin();
+        return event;
+    }
+
+    @Name("securebank.Posting")
+    @Label("Account Posting")
+    @Category({"SecureBank", "Transactions"})
+    @Description("Deposit or withdrawal on a single account")
+    static class Posting extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Account Number")
+        String accountNumber;
+
+        @Label("Amount")
+        double amount;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("securebank.Transfer")
+    @Label("Funds Transfer")
+    @Category({"SecureBank", "Transactions"})
+    static class Transfer extends Event {
+        @Label("From Account")
+        String fromAccount;
+
+        @Label("To Account")
+        String toAccount;
+
+        @Label("Amount")
+        double amount;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("securebank.Persistence")
+    @Label("Data File I/O")
+    @Category({"SecureBank", "Persistence"})
+    @Description("Full snapshot save or load of the account data file")
+    static class Persistence extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Accounts")
+        int accounts;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("securebank.Statement")
+    @Label("Statement Generation")
+    @Category({"SecureBank", "Statements"})
+    static class Statement extends Event {
+        @Label("Format")
+        String format;
+
+        @Label("Account Number")
+        String accountNumber;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("securebank.VelocityAlert")
+    @Label("Velocity Alert")
+    @Category({"SecureBank", "Transactions"})
+    @Description("Debit that crossed a velocity flag or block threshold")
+    static class VelocityAlert extends Event {
+        @Label("Account Number")
+        String accountNumber;
+
+        @Label("Blocked")
+        boolean blocked;
+
+        @Label("Debits In Window")
+        int windowCount;
+
+        @Label("Amount In Window")
+        double windowAmount;
+    }
+}
@@ -0,0 +1,216 @@
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process load generator for the banking engine. Seeds accounts with histories,
+// then drives a weighted mix of operations from concurrent clients at a target rate
+// and reports throughput, latency percentiles and a money-conservation check.
+// The same seed always produces the same data set and per-client operation sequence.
+//
+//   java -Dload.accounts=5000 -Dload.clients=16 -Dload.rate=2000 -Dload.seconds=30 BankLoadTest
+public class BankLoadTest {
+
+    enum Op { LOGIN, DEPOSIT, WITHDRAW, TRANSFER }
+
+    private static final String PASSWORD = "password";
+
+    private final int accountCount = Integer.getInteger("load.accounts", 1000);
+    private final int history = Integer.getInteger("load.history", 20);
+    private final int clients = Integer.getInteger("load.clients", 8);
+    private final int targetRate = Integer.getInteger("load.rate", 500);
+    private final int seconds = Integer.getInteger("load.seconds", 10);
+    private final long seed = Long.getLong("load.seed", 42L);
+    private final String mix = System.getProperty("load.mix", "login:40,deposit:20,withdraw:20,transfer:20");
+
+    private final Map<Op, LatencyHistogram> latencies = new EnumMap<>(Op.class);
+    private final Map<Op, LongAdder> completed = new EnumMap<>(Op.class);
+    private final Map<Op, LongAdder> failed = new EnumMap<>(Op.class);
+    private final DoubleAdder deposited = new DoubleAdder();
+    private final DoubleAdder withdrawn = new DoubleAdder();
+    private final LongAdder notIssued = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        File dataFile = File.createTempFile("bank_load", ".dat");
+        dataFile.deleteOnExit();
+        new File(dataFile.getPath() + ".tmp").deleteOnExit();
+        System.setProperty("bank.dataFile", dataFile.getPath());
+
+        boolean conserved = new BankLoadTest().run();
+        deleteColdTier(new File(dataFile.getPath() + ".accounts"));
+        System.exit(conserved ? 0 : 1);
+    }
+
+    boolean run() throws InterruptedException {
+        for (Op op : Op.values()) {
+            latencies.put(op, new LatencyHistogram());
+            completed.put(op, new LongAdder());
+            failed.put(op, new LongAdder());
+        }
+        Op[] weightedOps = parseMix(mix);
+
+        BankSystem bankSystem = new BankSystem();
+        String[] accountNumbers = seed(bankSystem);
+        double totalBefore = totalBalance(bankSystem);
+        System.out.printf("Seeded %,d accounts x %,d transactions (seed %d), total Rs.%,.2f%n",
+                accountCount, history, seed, totalBefore);
+
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (int c = 0; c < clients; c++) {
+            int clientId = c;
+            Thread client = new Thread(() -> {
+                try {
+                    runClient(bankSystem, accountNumbers, weightedOps, clientId, start, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        return report(bankSystem, totalBefore, elapsedSeconds);
+    }
+
+    private String[] seed(BankSystem bankSystem) {
+        Random random = new Random(seed);
+        String[] accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountNumbers[i] = String.format("%08d", i);
+            BankAccount account = new BankAccount(accountNumbers[i], "Customer " + i, "Address " + i,
+                    "9" + String.format("%09d", i), 1000 + random.nextInt(100_000), PASSWORD);
+            for (int h = 1; h < history; h++) {
+                double amount = 1 + random.nextInt(5_000);
+                if (random.nextInt(3) == 0) {
+                    account.withdraw(amount);
+                } else {
+                    account.deposit(amount);
+                }
+            }
+            bankSystem.addAccount(account);
+        }
+        bankSystem.saveData();
+        return accountNumbers;
+    }
+
+    // Open-loop pacing: latency is measured from each operation's scheduled start,
+    // so a stalled engine shows up as queueing delay instead of a lower request rate
+    private void runClient(BankSystem bankSystem, String[] accountNumbers, Op[] weightedOps,
+                           int clientId, long start, long end) {
+        Random random = new Random(seed * 31 + clientId);
+        long intervalNanos = targetRate > 0 ? TimeUnit.SECONDS.toNanos(clients) / targetRate : 0;
+        long scheduled = start;
+        while (scheduled < end && System.nanoTime() < end) {
+            long now = System.nanoTime();
+            if (now < scheduled) {
+                LockSupport.parkNanos(scheduled - now);
+            }
+
+            Op op = weightedOps[random.nextInt(weightedOps.length)];
+            String account = accountNumbers[random.nextInt(accountNumbers.length)];
+            double amount = 1 + random.nextInt(2_000);
+            boolean ok;
+            switch (op) {
+                case LOGIN:
+                    ok = bankSystem.login(account, PASSWORD) != null;
+                    break;
+                case DEPOSIT:
+                    bankSystem.getAccount(account).deposit(amount);
+                    deposited.add(amount);
+                    ok = true;
+                    break;
+                case WITHDRAW:
+                    ok = bankSystem.getAccount(account).withdraw(amount);
+                    if (ok) withdrawn.add(amount);
+                    break;
+                default:
+                    String target = accountNumbers[random.nextInt(accountNumbers.length)];
+                    ok = bankSystem.transferFunds(account, target, amount);
+                    break;
+            }
+
+            latencies.get(op).record(System.nanoTime() - (intervalNanos > 0 ? scheduled : now));
+            (ok ? completed : failed).get(op).increment();
+            scheduled = intervalNanos > 0 ? scheduled + intervalNanos : System.nanoTime();
+        }
+        // Slots the client fell too far behind to issue before the run ended
+        if (intervalNanos > 0 && scheduled < end) {
+            notIssued.add((end - scheduled) / intervalNanos);
+        }
+    }
+
+    private boolean report(BankSystem bankSystem, double totalBefore, double elapsedSeconds) {
+        long total = 0;
+        System.out.printf("%n%-10s %10s %8s %12s %12s %12s%n", "Operation", "OK", "Failed", "p50 us", "p99 us", "p999 us");
+        for (Op op : Op.values()) {
+            LatencyHistogram histogram = latencies.get(op);
+            long ok = completed.get(op).sum();
+            long bad = failed.get(op).sum();
+            total += ok + bad;
+            System.out.printf("%-10s %,10d %,8d %,12.1f %,12.1f %,12.1f%n", op, ok, bad,
+                    histogram.percentile(50) / 1000.0, histogram.percentile(99) / 1000.0,
+                    histogram.percentile(99.9) / 1000.0);
+        }
+        System.out.printf("%nThroughput: %,.0f ops/s achieved (target %,d) over %.1f s with %d clients%n",
+                total / elapsedSeconds, targetRate, elapsedSeconds, clients);
+        if (notIssued.sum() > 0) {
+            System.out.printf("Saturated: %,d scheduled operations could not be issued in time%n", notIssued.sum());
+        }
+
+        // Transfers move money between accounts, so only deposits and withdrawals change the total
+        double expected = totalBefore + deposited.sum() - withdrawn.sum();
+        double actual = totalBalance(bankSystem);
+        boolean conserved = Math.abs(expected - actual) < 0.01 * Math.max(1, total / 1_000_000.0 + 1);
+        int mismatched = 0;
+        for (BankAccount account : bankSystem.getAccounts()) {
+            List<Transaction> transactions = account.getTransactions();
+            if (Math.abs(transactions.get(transactions.size() - 1).getBalance() - account.getBalance()) > 0.005) {
+                mismatched++;
+            }
+        }
+        System.out.printf("Money conservation: expected Rs.%,.2f, actual Rs.%,.2f -> %s%n",
+                expected, actual, conserved ? "OK" : "VIOLATED");
+        System.out.printf("Accounts whose balance disagrees with their last transaction: %,d%n", mismatched);
+        System.out.println(bankSystem.getCacheStats());
+        System.out.println(bankSystem.getSnapshotStats());
+        return conserved && mismatched == 0;
+    }
+
+    // Cold account files only exist when run with -Dbank.cache.maxAccounts or maxMB
+    private static void deleteColdTier(File coldDir) {
+        File[] files = coldDir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            file.delete();
+        }
+        coldDir.delete();
+    }
+
+    private static double totalBalance(BankSystem bankSystem) {
+        double total = 0;
+        for (BankAccount account : bankSystem.getAccounts()) {
+            total += account.getBalance();
+        }
+        return total;
+    }
+
+    private static Op[] parseMix(String mix) {
+        List<Op> ops = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] entry = part.split(":");
+            Op op = Op.valueOf(entry[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(entry[1].trim()); i > 0; i--) {
+                ops.add(op);
+            }
+        }
+        return ops.toArray(new Op[0]);
+    }
+}
@@ -0,0 +1,155 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+// Process-wide counters and latency histograms for the core banking operations.
+// Registered as a platform MBean; -Dbank.metrics.logSeconds=N also appends a
+// summary to ~/bank_metrics.log every N seconds.
+class BankMetrics implements BankMetricsMXBean {
+    private static final BankMetrics INSTANCE = new BankMetrics();
+
+    private final Map<String, LongAdder> operations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Long> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("SecureBank:type=BankMetrics"));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        long logSeconds = Long.getLong("bank.metrics.logSeconds", 0);
+        if (logSeconds > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "bank-metrics-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(INSTANCE::dumpToLog, logSeconds, logSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public static BankMetrics get() {
+        return INSTANCE;
+    }
+
+    // Records one completed operation that started at startNanos
+    public void record(String operation, long startNanos) {
+        operations.computeIfAbsent(operation, k -> new LongAdder()).increment();
+        latencies.computeIfAbsent(operation, k -> new LatencyHistogram()).record(System.nanoTime() - startNanos);
+    }
+
+    // Reasons used by the engine: insufficient_funds, velocity_limit, unknown_account, bad_password, io_error
+    public void recordFailure(String operation, String reason) {
+        failures.computeIfAbsent(operation + "." + reason, k -> new LongAdder()).increment();
+    }
+
+    // Plain event counters with no latency, e.g. cache.hit and cache.miss
+    public void count(String counter) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).increment();
+    }
+
+    // Last reported value of a level, e.g. replication.lagRecords
+    public void gauge(String gauge, long value) {
+        gauges.put(gauge, value);
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return sums(operations);
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        return sums(failures);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return sums(counters);
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return new TreeMap<>(gauges);
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP50Micros() {
+        return percentiles(50);
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP99Micros() {
+        return percentiles(99);
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP999Micros() {
+        return percentiles(99.9);
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> entry : getOperationCounts().entrySet()) {
+            LatencyHistogram histogram = latencies.get(entry.getKey());
+            sb.append(String.format("%s count=%d p50=%.1fus p99=%.1fus p999=%.1fus%n", entry.getKey(), entry.getValue(),
+                    histogram.percentile(50) / 1000.0, histogram.percentile(99) / 1000.0,
+                    histogram.percentile(99.9) / 1000.0));
+        }
+        for (Map.Entry<String, Long> entry : getFailureCounts().entrySet()) {
+            sb.append(String.format("failure %s=%d%n", entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+            sb.append(String.format("counter %s=%d%n", entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, Long> entry : getGauges().entrySet()) {
+            sb.append(String.format("gauge %s=%d%n", entry.getKey(), entry.getValue()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+        failures.clear();
+        counters.clear();
+        gauges.clear();
+        latencies.clear();
+    }
+
+    private Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((name, counter) -> result.put(name, counter.sum()));
+        return result;
+    }
+
+    private Map<String, Double> percentiles(double percentile) {
+        Map<String, Double> result = new TreeMap<>();
+        latencies.forEach((name, histogram) -> result.put(name, histogram.percentile(percentile) / 1000.0));
+        return result;
+    }
+
+    private void dumpToLog() {
+        try (PrintWriter out = new PrintWriter(new FileWriter(System.getProperty("user.home") + "/bank_metrics.log", true))) {
+            out.println(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+            out.print(getSummary());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
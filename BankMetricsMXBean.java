@@ -0,0 +1,14 @@
+import java.util.Map;
+
+// Management view of BankMetrics, published as SecureBank:type=BankMetrics
+public interface BankMetricsMXBean {
+    Map<String, Long> getOperationCounts();
+    Map<String, Long> getFailureCounts();
+    Map<String, Long> getCounters();
+    Map<String, Long> getGauges();
+    Map<String, Double> getLatencyP50Micros();
+    Map<String, Double> getLatencyP99Micros();
+    Map<String, Double> getLatencyP999Micros();
+    String getSummary();
+    void reset();
+}
@@ -0,0 +1,431 @@
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+class BankSystem {
+    private AccountStore accounts;
+    // Answers "no such account" without a store lookup; replaced when outgrown
+    private volatile AccountNumberFilter accountFilter;
+    private boolean accountFilterChanged;
+    private final BankEventBus eventBus = new BankEventBus();
+    // Shared by postings and transfers, exclusive while saving
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    // Cut taken by a running online backup, see HotBackup
+    private final CopyOnWriteSnapshot backupSnapshot = new CopyOnWriteSnapshot();
+    // Old transactions moved out of the live history, see RetentionJob
+    private final TransactionArchive archive = new TransactionArchive(new File(ARCHIVE_DIR));
+    // -Dbank.dataFile points the engine at another data file, e.g. for batch runs
+    private static final String DATA_FILE =
+            System.getProperty("bank.dataFile", System.getProperty("user.home") + "/bank_data.dat");
+    private static final String COLD_DIR = System.getProperty("bank.cache.dir", DATA_FILE + ".accounts");
+    private static final String FILTER_FILE = DATA_FILE + ".bloom";
+    private static final String ARCHIVE_DIR = System.getProperty("bank.archive.dir", DATA_FILE + ".archive");
+    private static final AtomicLong TRANSFER_SEQUENCE = new AtomicLong();
+    // One save at a time per data file, from writing the temp file to replacing the data
+    // file with it; taken before the state lock and never while holding an account
+    private static final Object SAVE_LOCK = new Object();
+    // Last data file read or write, for getSnapshotStats()
+    private volatile long snapshotRawBytes;
+    private volatile long snapshotStoredBytes;
+    private volatile long snapshotReadNanos;
+    private volatile long snapshotWriteNanos;
+
+    public BankSystem() {
+        loadData();
+    }
+
+    // In-process change stream for balance, transaction and profile updates
+    public void subscribe(BankEventListener listener) {
+        eventBus.subscribe(listener);
+    }
+
+    public void unsubscribe(BankEventListener listener) {
+        eventBus.unsubscribe(listener);
+    }
+
+    public String registerAccount(String name, String address, String phone, double initialDeposit, String password) {
+        String accountNumber = generateAccountNumber();
+        addAccount(new BankAccount(accountNumber, name, address, phone, initialDeposit, password));
+        saveData();
+        return accountNumber;
+    }
+
+    // Adds an account without persisting, for bulk seeding by tools
+    synchronized void addAccount(BankAccount account) {
+        // Filter first, so a concurrent lookup never rejects an account already in the store
+        accountFilter.add(account.getAccountNumber());
+        accounts.put(account);
+        if (accountFilter.isFull()) {
+            accountFilter = AccountNumberFilter.build(accounts.accountNumbers());
+        }
+        accountFilterChanged = true;
+        runLocked(account, () -> eventBus.publish(new BankEvent(BankEvent.Type.ACCOUNT_OPENED,
+                account.getAccountNumber(), account.getBalance(), null, account.getTransactions().size() - 1,
+                account.getArchivedCount())));
+    }
+
+    // Store lookup guarded by the account filter, so unknown numbers never reach the store
+    private BankAccount lookup(String accountNumber) {
+        if (accountNumber == null || !accountFilter.mightContain(accountNumber)) {
+            BankMetrics.get().count("filter.reject");
+            return null;
+        }
+        return accounts.get(accountNumber);
+    }
+
+    // Runs action with the account locked, in the same lock order postings use
+    void runLocked(BankAccount account, Runnable action) {
+        Lock shared = stateLock.readLock();
+        shared.lock();
+        try {
+            synchronized (account) {
+                action.run();
+            }
+        } finally {
+            shared.unlock();
+        }
+    }
+
+    public BankAccount login(String accountNumber, String password) {
+        long start = System.nanoTime();
+        BankAccount account = lookup(accountNumber);
+        if (account == null) {
+            BankMetrics.get().recordFailure("login", "unknown_account");
+        } else if (!account.verifyPassword(password)) {
+            BankMetrics.get().recordFailure("login", "bad_password");
+            account = null;
+        }
+        BankMetrics.get().record("login", start);
+        return account;
+    }
+
+    public boolean transferFunds(String fromAccount, String toAccount, double amount) {
+        long start = System.nanoTime();
+        BankJfrEvents.Transfer event = BankJfrEvents.transfer();
+        boolean transferred = transfer(fromAccount, toAccount, amount, transferReference(fromAccount, toAccount))
+                == BankAccount.WithdrawalResult.COMPLETED;
+        if (transferred) {
+            saveData();
+        }
+        BankMetrics.get().record("transfer", start);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.fromAccount = fromAccount;
+                event.toAccount = toAccount;
+                event.amount = amount;
+                event.succeeded = transferred;
+                event.commit();
+            }
+        }
+        return transferred;
+    }
+
+    // transferFunds without the save, for batch callers that persist once per batch
+    BankAccount.WithdrawalResult transfer(String fromAccount, String toAccount, double amount, String reference) {
+        BankAccount sender = lookup(fromAccount);
+        BankAccount receiver = sender != null ? lookup(toAccount) : null;
+        if (sender == null || receiver == null) {
+            BankMetrics.get().recordFailure("transfer", "unknown_account");
+            return BankAccount.WithdrawalResult.UNKNOWN_ACCOUNT;
+        }
+
+        BankAccount.WithdrawalResult debited;
+        // Both legs happen under both account monitors, taken in account-number order
+        BankAccount first = sender.getAccountNumber().compareTo(receiver.getAccountNumber()) <= 0 ? sender : receiver;
+        BankAccount second = first == sender ? receiver : sender;
+        Lock shared = stateLock.readLock();
+        shared.lock();
+        try {
+            synchronized (first) {
+                synchronized (second) {
+                    debited = sender.tryWithdraw("Transfer to " + toAccount, amount, reference);
+                    if (debited == BankAccount.WithdrawalResult.COMPLETED) {
+                        receiver.deposit("Transfer from " + fromAccount, amount, reference);
+                    }
+                }
+            }
+        } finally {
+            shared.unlock();
+        }
+        if (debited != BankAccount.WithdrawalResult.COMPLETED) {
+            BankMetrics.get().recordFailure("transfer",
+                    debited == BankAccount.WithdrawalResult.LIMIT_EXCEEDED ? "velocity_limit" : "insufficient_funds");
+        }
+        return debited;
+    }
+
+    // "<from>><to>@<millis>-<seq>", recorded on both legs so audits can pair them up
+    static String transferReference(String fromAccount, String toAccount) {
+        return fromAccount + '>' + toAccount + '@' + System.currentTimeMillis() + '-' + TRANSFER_SEQUENCE.incrementAndGet();
+    }
+
+    // Bank-wide rollup merged from the per-account aggregates, no history scan
+    public MonthlyAggregate getBankMonthlyAggregate(String month) {
+        MonthlyAggregate total = new MonthlyAggregate(month);
+        for (BankAccount account : getAccounts()) {
+            total.merge(account.getMonthlyAggregate(month));
+        }
+        return total;
+    }
+
+    public boolean accountExists(String accountNumber) {
+        return accountNumber != null && accountFilter.mightContain(accountNumber) && accounts.contains(accountNumber);
+    }
+
+    public BankAccount getAccount(String accountNumber) {
+        return lookup(accountNumber);
+    }
+
+    // Read-only view over every account; iterating pages cold accounts in one at a time
+    public Collection<BankAccount> getAccounts() {
+        List<String> accountNumbers = accounts.accountNumbers();
+        return new AbstractCollection<BankAccount>() {
+            @Override
+            public Iterator<BankAccount> iterator() {
+                Iterator<String> numbers = accountNumbers.iterator();
+                return new Iterator<BankAccount>() {
+                    @Override
+                    public boolean hasNext() { return numbers.hasNext(); }
+                    @Override
+                    public BankAccount next() { return accounts.get(numbers.next()); }
+                };
+            }
+
+            @Override
+            public int size() { return accountNumbers.size(); }
+        };
+    }
+
+    // Side files kept next to the data file, e.g. ".standing" for standing instructions
+    static File companionFile(String suffix) {
+        return new File(DATA_FILE + suffix);
+    }
+
+    // Snapshot of all account numbers, for batch jobs that look accounts up one by one
+    public List<String> getAccountNumbers() {
+        return accounts.accountNumbers();
+    }
+
+    // Hot/cold tier occupancy and cache hit ratio
+    public String getCacheStats() {
+        return accounts.toString();
+    }
+
+    public String generateAccountNumber() {
+        Random random = new Random();
+        String accountNumber;
+        // The filter never misses an issued number, so this cannot hand out a duplicate
+        do {
+            accountNumber = String.format("%08d", random.nextInt(100000000));
+        } while (accountFilter.mightContain(accountNumber));
+        return accountNumber;
+    }
+
+    public String getAccountFilterStats() {
+        return accountFilter.toString();
+    }
+
+    // Starts a consistent snapshot for an online backup and returns the accounts in it.
+    // Only the cut itself is exclusive; postings carry on while the backup is written.
+    List<String> beginSnapshot() {
+        stateLock.writeLock().lock();
+        try {
+            if (!backupSnapshot.begin()) {
+                throw new IllegalStateException("A backup is already running");
+            }
+            return accounts.accountNumbers();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    // The account as it was when the snapshot began, with its archived history folded
+    // back in, so a backup or standby does not depend on this archive
+    BankAccount snapshotAccount(String accountNumber) throws IOException {
+        BankAccount account = accounts.get(accountNumber);
+        return account != null ? backupSnapshot.take(account).withArchivedHistory() : null;
+    }
+
+    TransactionArchive getArchive() {
+        return archive;
+    }
+
+    void endSnapshot() {
+        backupSnapshot.end();
+    }
+
+    // Replaces the data file with a restored set of accounts. Run with the application
+    // stopped; the previous data file and cold tier are kept with a .pre-restore suffix.
+    static void installSnapshot(Map<String, BankAccount> snapshot) throws IOException {
+        File dataFile = new File(DATA_FILE);
+        File tempFile = new File(DATA_FILE + ".tmp");
+        // A standby installs a new base while its previous BankSystem may still be saving
+        synchronized (SAVE_LOCK) {
+            writeDataFile(tempFile, snapshot);
+            moveAside(dataFile);
+            // Cold files newer than the data file would win over the restored accounts on load;
+            // restored accounts carry their full history, so the archive starts over too
+            moveAside(new File(COLD_DIR));
+            moveAside(new File(ARCHIVE_DIR));
+            new File(FILTER_FILE).delete();
+            if (!tempFile.renameTo(dataFile)) {
+                throw new IOException("Could not replace " + dataFile);
+            }
+        }
+    }
+
+    private static void moveAside(File file) throws IOException {
+        if (!file.exists()) return;
+        File aside = new File(file.getPath() + ".pre-restore");
+        deleteRecursively(aside);
+        if (!file.renameTo(aside)) {
+            throw new IOException("Could not move " + file + " aside");
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadData() {
+        // Touch metrics first so MBean registration is not timed as part of the load
+        BankMetrics metrics = BankMetrics.get();
+        long start = System.nanoTime();
+        BankJfrEvents.Persistence event = BankJfrEvents.persistence();
+        boolean loaded = false;
+        Map<String, BankAccount> snapshot = new HashMap<>();
+        try (InputStream in = SnapshotCodec.decompress(new FileInputStream(DATA_FILE))) {
+            SnapshotCodec.CountingInputStream counted = new SnapshotCodec.CountingInputStream(in);
+            snapshot = (Map<String, BankAccount>) new ObjectInputStream(counted).readObject();
+            loaded = true;
+            snapshotReadNanos = System.nanoTime() - start;
+            recordSnapshotSize(counted.getCount(), new File(DATA_FILE).length());
+        } catch (FileNotFoundException e) {
+            // First run, nothing saved yet
+        } catch (Exception e) {
+            metrics.recordFailure("load", "io_error");
+        }
+        accounts = new AccountStore(new File(COLD_DIR), eventBus, stateLock, backupSnapshot, archive);
+        accounts.load(snapshot, new File(DATA_FILE).lastModified());
+        loadAccountFilter();
+        metrics.record("load", start);
+        commitPersistenceEvent(event, "load", loaded);
+    }
+
+    // A filter file that disagrees with the store (missing, or from before a crash) is rebuilt
+    private void loadAccountFilter() {
+        File file = new File(FILTER_FILE);
+        try {
+            if (file.exists()) {
+                AccountNumberFilter filter = AccountNumberFilter.readFrom(file);
+                if (filter.getInserted() == accounts.size()) {
+                    accountFilter = filter;
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            BankMetrics.get().recordFailure("load", "filter_io_error");
+        }
+        accountFilter = AccountNumberFilter.build(accounts.accountNumbers());
+        accountFilterChanged = accounts.size() > 0;
+    }
+
+    public void saveData() {
+        long start = System.nanoTime();
+        BankJfrEvents.Persistence event = BankJfrEvents.persistence();
+        boolean saved = false;
+        try {
+            synchronized (SAVE_LOCK) {
+                File tempFile = new File(DATA_FILE + ".tmp");
+                // Only resident accounts are in the snapshot; cold ones are already on disk
+                Map<String, BankAccount> snapshot = accounts.snapshotForSave();
+                long rawBytes;
+                long writeStart = System.nanoTime();
+                stateLock.writeLock().lock();
+                try {
+                    rawBytes = writeDataFile(tempFile, snapshot);
+                } finally {
+                    stateLock.writeLock().unlock();
+                }
+                snapshotWriteNanos = System.nanoTime() - writeStart;
+                recordSnapshotSize(rawBytes, tempFile.length());
+                replace(tempFile, new File(DATA_FILE));
+                saved = true;
+                saveAccountFilter();
+            }
+        } catch (IOException e) {
+            BankMetrics.get().recordFailure("save", "io_error");
+            e.printStackTrace();
+        }
+        BankMetrics.get().record("save", start);
+        commitPersistenceEvent(event, "save", saved);
+    }
+
+    // Replaces target with a fully written source, so readers and a crash see either the
+    // old file or the new one, never neither. Shared by everything that persists a file.
+    static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Returns the uncompressed size
+    private static long writeDataFile(File file, Map<String, BankAccount> snapshot) throws IOException {
+        SnapshotCodec.CountingOutputStream counted =
+                new SnapshotCodec.CountingOutputStream(SnapshotCodec.compress(new FileOutputStream(file)));
+        try (ObjectOutputStream oos = new ObjectOutputStream(counted)) {
+            oos.writeObject(snapshot);
+        }
+        return counted.getCount();
+    }
+
+    private void recordSnapshotSize(long rawBytes, long storedBytes) {
+        snapshotRawBytes = rawBytes;
+        snapshotStoredBytes = storedBytes;
+        BankMetrics.get().gauge("snapshot.rawBytes", rawBytes);
+        BankMetrics.get().gauge("snapshot.storedBytes", storedBytes);
+    }
+
+    // Compression ratio and timings of the data file, as last read or written
+    public String getSnapshotStats() {
+        long stored = snapshotStoredBytes;
+        return String.format("Data file: %s, %,d KB raw, %,d KB stored (%.1fx), last read %.1f ms, last write %.1f ms",
+                SnapshotCodec.describe(), snapshotRawBytes / 1024, stored / 1024,
+                stored > 0 ? (double) snapshotRawBytes / stored : 0,
+                snapshotReadNanos / 1_000_000.0, snapshotWriteNanos / 1_000_000.0);
+    }
+
+    private synchronized void saveAccountFilter() throws IOException {
+        if (accountFilterChanged) {
+            accountFilter.writeTo(new File(FILTER_FILE));
+            accountFilterChanged = false;
+        }
+    }
+
+    private void commitPersistenceEvent(BankJfrEvents.Persistence event, String operation, boolean succeeded) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.accounts = accounts.size();
+            event.bytes = new File(DATA_FILE).length();
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Point-in-time view of every account for an online backup. begin() marks the cut
+// under BankSystem's exclusive lock; from then on, the first change to an account
+// first preserves a copy of its state at the cut. The backup writer takes each
+// account once: the preserved copy if there is one, otherwise the current state,
+// which has not changed since the cut. Copies share the append-only history and
+// only remember its length, so preserving an account is O(1) whatever its size.
+class CopyOnWriteSnapshot {
+    // Marks an account the writer has already taken; later changes need no copy
+    private static final Object WRITTEN = new Object();
+
+    private final Map<String, Object> images = new ConcurrentHashMap<>();
+    private volatile boolean active;
+
+    boolean isActive() {
+        return active;
+    }
+
+    // Called under the exclusive lock, so no posting is half done at the cut
+    synchronized boolean begin() {
+        if (active) return false;
+        images.clear();
+        active = true;
+        return true;
+    }
+
+    synchronized void end() {
+        active = false;
+        images.clear();
+    }
+
+    // Called by mutators under the account monitor, before their change
+    void preserve(BankAccount account) {
+        String accountNumber = account.getAccountNumber();
+        if (!images.containsKey(accountNumber)) {
+            images.put(accountNumber, account.pointInTimeCopy());
+            BankMetrics.get().count("backup.preserved");
+        }
+    }
+
+    // The account as it was at the cut, detached from the live history
+    BankAccount take(BankAccount account) {
+        synchronized (account) {
+            Object image = images.put(account.getAccountNumber(), WRITTEN);
+            BankAccount copy = image instanceof BankAccount ? (BankAccount) image : account.pointInTimeCopy();
+            return copy.materialize();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+interface EndOfDayRule {
+    // Posts this rule's entry to the account, dated businessDate; returns the signed amount posted
+    double apply(BankAccount account, String businessDate);
+}
@@ -0,0 +1,210 @@
+import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Online backup and verified restore. The backup streams a copy-on-write snapshot of
+// every account (see CopyOnWriteSnapshot) while deposits and transfers carry on, so
+// the file holds the book exactly as it stood at one instant.
+//
+// File layout: header (magic, version, created millis, account count), the accounts as
+// a Java serialization stream compressed with the configured SnapshotCodec (version 1
+// files are uncompressed), then the transaction count and total balance, then a CRC32C
+// of everything before it and the magic again. Restore checks the CRC, then the
+// count and total, installs the accounts as the data file and checks them once more
+// after loading them back. Restore is offline: stop the application first.
+class HotBackup {
+    private static final int MAGIC = 0x42414e4b;
+    private static final int VERSION = 2;
+    private static final int TRAILER_BYTES = 12;
+    // Handles kept by the serialization stream are dropped this often to bound its memory
+    private static final int RESET_INTERVAL = 1024;
+    private static final double TOLERANCE = 0.005;
+
+    public static class Result {
+        private final String operation;
+        private final int accounts;
+        private final long transactions;
+        private final long bytes;
+        private final long rawBytes;
+        private final long nanos;
+        private final long checksum;
+
+        Result(String operation, int accounts, long transactions, long bytes, long rawBytes, long nanos, long checksum) {
+            this.operation = operation;
+            this.accounts = accounts;
+            this.transactions = transactions;
+            this.bytes = bytes;
+            this.rawBytes = rawBytes;
+            this.nanos = nanos;
+            this.checksum = checksum;
+        }
+
+        public int getAccounts() { return accounts; }
+        public long getTransactions() { return transactions; }
+        public long getBytes() { return bytes; }
+
+        public double getMegabytesPerSecond() {
+            return nanos > 0 ? rawBytes / (1024.0 * 1024.0) / (nanos / 1_000_000_000.0) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %,d accounts, %,d transactions, %,d KB (%,d KB uncompressed, %.1fx) " +
+                    "in %.1f ms (%.1f MB/s), CRC32C %08x", operation, accounts, transactions, bytes / 1024,
+                    rawBytes / 1024, bytes > 0 ? (double) rawBytes / bytes : 0, nanos / 1_000_000.0,
+                    getMegabytesPerSecond(), checksum);
+        }
+    }
+
+    private final BankSystem bankSystem;
+
+    public HotBackup(BankSystem bankSystem) {
+        this.bankSystem = bankSystem;
+    }
+
+    public Result backup(File file) throws IOException {
+        long start = System.nanoTime();
+        File tempFile = new File(file.getPath() + ".tmp");
+        List<String> accountNumbers = bankSystem.beginSnapshot();
+        long transactions = 0;
+        double totalBalance = 0;
+        long rawBytes;
+        CRC32C crc = new CRC32C();
+        try (OutputStream raw = new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024)) {
+            CheckedOutputStream checked = new CheckedOutputStream(raw, crc);
+            DataOutputStream header = new DataOutputStream(checked);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeLong(System.currentTimeMillis());
+            header.writeInt(accountNumbers.size());
+            header.flush();
+
+            // Closing the body finishes the compressed stream but leaves the file open for the trailer
+            SnapshotCodec.CountingOutputStream body = new SnapshotCodec.CountingOutputStream(
+                    SnapshotCodec.compress(new FilterOutputStream(checked) {
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            out.write(b, off, len);
+                        }
+
+                        @Override
+                        public void close() throws IOException {
+                            flush();
+                        }
+                    }));
+            ObjectOutputStream oos = new ObjectOutputStream(body);
+            int written = 0;
+            for (String accountNumber : accountNumbers) {
+                BankAccount account = bankSystem.snapshotAccount(accountNumber);
+                if (account == null) {
+                    throw new IOException("Account " + accountNumber + " could not be read");
+                }
+                oos.writeObject(account);
+                transactions += account.getTransactions().size();
+                totalBalance += account.getBalance();
+                if (++written % RESET_INTERVAL == 0) {
+                    oos.reset();
+                }
+            }
+            oos.writeLong(transactions);
+            oos.writeDouble(totalBalance);
+            oos.close();
+            rawBytes = body.getCount();
+
+            DataOutputStream trailer = new DataOutputStream(raw);
+            trailer.writeLong(crc.getValue());
+            trailer.writeInt(MAGIC);
+            trailer.flush();
+        } catch (IOException | RuntimeException e) {
+            tempFile.delete();
+            BankMetrics.get().recordFailure("backup", "io_error");
+            throw e;
+        } finally {
+            bankSystem.endSnapshot();
+        }
+        // A previous backup of the same name stays in place until the new one replaces it
+        try {
+            BankSystem.replace(tempFile, file);
+        } catch (IOException e) {
+            BankMetrics.get().recordFailure("backup", "io_error");
+            throw e;
+        }
+        BankMetrics.get().record("backup", start);
+        return new Result("Backup", accountNumbers.size(), transactions, file.length(), rawBytes,
+                System.nanoTime() - start, crc.getValue());
+    }
+
+    // Verifies the backup, installs it as the data file and checks the reloaded accounts
+    public static Result restore(File file) throws IOException {
+        long start = System.nanoTime();
+        long checksum = verifyChecksum(file);
+
+        Map<String, BankAccount> accounts = new LinkedHashMap<>();
+        SnapshotCodec.CountingInputStream body;
+        long transactions = 0;
+        double totalBalance = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            int version;
+            if (in.readInt() != MAGIC || (version = in.readInt()) > VERSION) {
+                throw new IOException(file + " is not a bank backup");
+            }
+            in.readLong();
+            int count = in.readInt();
+            body = new SnapshotCodec.CountingInputStream(version > 1 ? SnapshotCodec.decompress(in) : in);
+            ObjectInputStream ois = new ObjectInputStream(body);
+            for (int i = 0; i < count; i++) {
+                BankAccount account = (BankAccount) ois.readObject();
+                accounts.put(account.getAccountNumber(), account);
+                transactions += account.getTransactions().size();
+                totalBalance += account.getBalance();
+            }
+            if (ois.readLong() != transactions || Math.abs(ois.readDouble() - totalBalance) > TOLERANCE) {
+                throw new IOException(file + " does not match its own totals");
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException(file + " is not a bank backup", e);
+        }
+
+        BankSystem.installSnapshot(accounts);
+        double reloadedBalance = 0;
+        BankSystem restored = new BankSystem();
+        for (BankAccount account : restored.getAccounts()) {
+            reloadedBalance += account.getBalance();
+        }
+        if (restored.getAccountNumbers().size() != accounts.size() || Math.abs(reloadedBalance - totalBalance) > TOLERANCE) {
+            BankMetrics.get().recordFailure("restore", "verify_failed");
+            throw new IOException("Restored data file does not match " + file);
+        }
+        BankMetrics.get().record("restore", start);
+        return new Result("Restore", accounts.size(), transactions, file.length(), body.getCount(),
+                System.nanoTime() - start, checksum);
+    }
+
+    private static long verifyChecksum(File file) throws IOException {
+        long length = file.length();
+        if (length < TRAILER_BYTES) {
+            throw new IOException(file + " is not a bank backup");
+        }
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            CheckedInputStream checked = new CheckedInputStream(in, crc);
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = length - TRAILER_BYTES;
+            while (remaining > 0) {
+                int read = checked.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) throw new EOFException(file + " is truncated");
+                remaining -= read;
+            }
+            long expected = in.readLong();
+            if (in.readInt() != MAGIC || expected != crc.getValue()) {
+                BankMetrics.get().recordFailure("restore", "bad_checksum");
+                throw new IOException(file + " is damaged: checksum mismatch");
+            }
+            return expected;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+class InterestAccrualRule implements EndOfDayRule {
+    private final double annualRatePercent;
+
+    public InterestAccrualRule(double annualRatePercent) {
+        this.annualRatePercent = annualRatePercent;
+    }
+
+    @Override
+    public double apply(BankAccount account, String businessDate) {
+        double interest = Math.round(account.getBalance() * annualRatePercent / 100 / 365 * 100) / 100.0;
+        if (interest <= 0) return 0;
+        account.credit("Interest " + businessDate, interest, businessDate);
+        return interest;
+    }
+}
@@ -0,0 +1,281 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Reconciliation audit over every account's history, run in parallel on the common
+// ForkJoin pool. Each account is captured under its own monitor just long enough to
+// copy its balance and history, so postings and transfers carry on while the audit runs.
+//
+// Checks: every Transaction's balance equals the running sum of amounts up to it, the
+// account balance equals the full sum, and each transfer debit has a credit of the same
+// amount with the same reference (and vice versa). A leg whose partner was posted after
+// the partner account was captured is counted as in flight, not as a discrepancy.
+// Archived history (see RetentionJob) is not read: running balances start from the
+// account's opening balance, and a leg whose partner falls in the partner's archived
+// period is counted as archived.
+class LedgerAudit {
+    private static final int PARTITION_SIZE = 256;
+    private static final double TOLERANCE = 0.005;
+
+    enum Kind { RUNNING_BALANCE, ACCOUNT_BALANCE, UNMATCHED_TRANSFER, TRANSFER_AMOUNT }
+
+    public static class Discrepancy {
+        private final Kind kind;
+        private final String accountNumber;
+        private final String date;
+        private final String detail;
+        private final double expected;
+        private final double actual;
+
+        Discrepancy(Kind kind, String accountNumber, String date, String detail, double expected, double actual) {
+            this.kind = kind;
+            this.accountNumber = accountNumber;
+            this.date = date;
+            this.detail = detail;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public Kind getKind() { return kind; }
+        public String getAccountNumber() { return accountNumber; }
+
+        @Override
+        public String toString() {
+            return String.format("%-18s %s %-19s expected Rs.%,.2f, found Rs.%,.2f  %s",
+                    kind, accountNumber, date != null ? date : "", expected, actual, detail);
+        }
+    }
+
+    public static class Report {
+        private final int accounts;
+        private final long transactions;
+        private final int transfersMatched;
+        private final int transfersInFlight;
+        private final int transfersArchived;
+        private final List<Discrepancy> discrepancies;
+        private final long scanNanos;
+        private final long matchNanos;
+
+        Report(int accounts, long transactions, int transfersMatched, int transfersInFlight, int transfersArchived,
+               List<Discrepancy> discrepancies, long scanNanos, long matchNanos) {
+            this.accounts = accounts;
+            this.transactions = transactions;
+            this.transfersMatched = transfersMatched;
+            this.transfersInFlight = transfersInFlight;
+            this.transfersArchived = transfersArchived;
+            this.discrepancies = discrepancies;
+            this.scanNanos = scanNanos;
+            this.matchNanos = matchNanos;
+        }
+
+        public int getAccounts() { return accounts; }
+        public long getTransactions() { return transactions; }
+        public int getTransfersMatched() { return transfersMatched; }
+        public int getTransfersInFlight() { return transfersInFlight; }
+        public int getTransfersArchived() { return transfersArchived; }
+        public List<Discrepancy> getDiscrepancies() { return discrepancies; }
+        public boolean isClean() { return discrepancies.isEmpty(); }
+
+        @Override
+        public String toString() {
+            return String.format("Audit: %,d accounts, %,d transactions, %,d transfers matched, %,d in flight, " +
+                    "%,d against archived history, %,d discrepancies (scan %.1f ms, match %.1f ms)",
+                    accounts, transactions, transfersMatched, transfersInFlight, transfersArchived, discrepancies.size(),
+                    scanNanos / 1_000_000.0, matchNanos / 1_000_000.0);
+        }
+    }
+
+    // One side of a transfer as found in an account's captured history
+    private static class Leg {
+        final String accountNumber;
+        final String date;
+        final double amount;
+
+        Leg(String accountNumber, String date, double amount) {
+            this.accountNumber = accountNumber;
+            this.date = date;
+            this.amount = amount;
+        }
+    }
+
+    private static class Partial {
+        int accounts;
+        long transactions;
+        final List<Discrepancy> discrepancies = new ArrayList<>();
+        final Map<String, Leg> debits = new HashMap<>();
+        final Map<String, Leg> credits = new HashMap<>();
+        // History length at capture time, archived part included, to tell in-flight legs from missing ones
+        final Map<String, Long> captured = new HashMap<>();
+        // Date of the first live transaction of accounts with archived history
+        final Map<String, String> firstLive = new HashMap<>();
+
+        void merge(Partial other) {
+            accounts += other.accounts;
+            transactions += other.transactions;
+            discrepancies.addAll(other.discrepancies);
+            debits.putAll(other.debits);
+            credits.putAll(other.credits);
+            captured.putAll(other.captured);
+            firstLive.putAll(other.firstLive);
+        }
+    }
+
+    private final BankSystem bankSystem;
+
+    public LedgerAudit(BankSystem bankSystem) {
+        this.bankSystem = bankSystem;
+    }
+
+    public Report run() {
+        long start = System.nanoTime();
+        String[] index = bankSystem.getAccountNumbers().toArray(new String[0]);
+        Partial result = ForkJoinPool.commonPool().invoke(new ScanTask(index, 0, index.length));
+        long scanDone = System.nanoTime();
+
+        int matched = 0;
+        int inFlight = 0;
+        int archived = 0;
+        for (Map.Entry<String, Leg> entry : result.debits.entrySet()) {
+            Leg debit = entry.getValue();
+            Leg credit = result.credits.remove(entry.getKey());
+            if (credit != null) {
+                matched++;
+                if (Math.abs(debit.amount + credit.amount) > TOLERANCE) {
+                    result.discrepancies.add(new Discrepancy(Kind.TRANSFER_AMOUNT, credit.accountNumber, credit.date,
+                            "ref " + entry.getKey(), -debit.amount, credit.amount));
+                }
+            } else if (postedSinceCapture(result, counterparty(entry.getKey(), false), entry.getKey())) {
+                inFlight++;
+            } else if (inArchive(result, counterparty(entry.getKey(), false), debit)) {
+                archived++;
+            } else {
+                result.discrepancies.add(new Discrepancy(Kind.UNMATCHED_TRANSFER, debit.accountNumber, debit.date,
+                        "no credit for ref " + entry.getKey(), -debit.amount, 0));
+            }
+        }
+        for (Map.Entry<String, Leg> entry : result.credits.entrySet()) {
+            Leg credit = entry.getValue();
+            if (postedSinceCapture(result, counterparty(entry.getKey(), true), entry.getKey())) {
+                inFlight++;
+            } else if (inArchive(result, counterparty(entry.getKey(), true), credit)) {
+                archived++;
+            } else {
+                result.discrepancies.add(new Discrepancy(Kind.UNMATCHED_TRANSFER, credit.accountNumber, credit.date,
+                        "no debit for ref " + entry.getKey(), credit.amount, 0));
+            }
+        }
+        long matchDone = System.nanoTime();
+        BankMetrics.get().record("audit", start);
+
+        return new Report(result.accounts, result.transactions, matched, inFlight, archived, result.discrepancies,
+                scanDone - start, matchDone - scanDone);
+    }
+
+    // References look like "<from>><to>@<id>"; see BankSystem.transferReference
+    private static String counterparty(String reference, boolean sender) {
+        int arrow = reference.indexOf('>');
+        int at = reference.indexOf('@', arrow);
+        if (arrow < 0 || at < 0) return null;
+        return sender ? reference.substring(0, arrow) : reference.substring(arrow + 1, at);
+    }
+
+    // The partner's archived period ends on its first live day, so a leg dated no later
+    // than that can have its partner in the archive
+    private static boolean inArchive(Partial result, String accountNumber, Leg leg) {
+        String firstLive = accountNumber != null ? result.firstLive.get(accountNumber) : null;
+        return firstLive != null && leg.date.substring(0, 10).compareTo(firstLive.substring(0, 10)) <= 0;
+    }
+
+    // Looks for the missing leg in the part of the partner's history posted after it was captured
+    private boolean postedSinceCapture(Partial result, String accountNumber, String reference) {
+        Long capturedSize = accountNumber != null ? result.captured.get(accountNumber) : null;
+        BankAccount account = capturedSize != null ? bankSystem.getAccount(accountNumber) : null;
+        if (account == null) return false;
+        List<Transaction> tail;
+        synchronized (account) {
+            // Archiving since the capture shifts the live history left by the archived count
+            List<Transaction> transactions = account.getTransactions();
+            long from = Math.max(0, capturedSize - account.getArchivedCount());
+            tail = new ArrayList<>(transactions.subList((int) Math.min(from, transactions.size()), transactions.size()));
+        }
+        for (Transaction transaction : tail) {
+            if (reference.equals(transaction.getReference())) return true;
+        }
+        return false;
+    }
+
+    private class ScanTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+        private final String[] index;
+        private final int from;
+        private final int to;
+
+        ScanTask(String[] index, int from, int to) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= PARTITION_SIZE) {
+                Partial partial = new Partial();
+                for (int i = from; i < to; i++) {
+                    BankAccount account = bankSystem.getAccount(index[i]);
+                    if (account != null) {
+                        scan(account, partial);
+                    }
+                }
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(index, from, mid);
+            ScanTask right = new ScanTask(index, mid, to);
+            right.fork();
+            Partial partial = left.compute();
+            partial.merge(right.join());
+            return partial;
+        }
+
+        private void scan(BankAccount account, Partial partial) {
+            String accountNumber = account.getAccountNumber();
+            Transaction[] history;
+            double balance;
+            long archivedCount;
+            double running;
+            // Balance and history change together under the account monitor, so this copy is consistent
+            synchronized (account) {
+                history = account.getTransactions().toArray(new Transaction[0]);
+                balance = account.getBalance();
+                archivedCount = account.getArchivedCount();
+                running = account.getOpeningBalance();
+            }
+            partial.accounts++;
+            partial.transactions += history.length;
+            partial.captured.put(accountNumber, archivedCount + history.length);
+            if (archivedCount > 0 && history.length > 0) {
+                partial.firstLive.put(accountNumber, history[0].getDate());
+            }
+
+            boolean reported = false;
+            for (Transaction transaction : history) {
+                running += transaction.getAmount();
+                // Only the first break per account is reported; later ones follow from it
+                if (!reported && Math.abs(running - transaction.getBalance()) > TOLERANCE) {
+                    partial.discrepancies.add(new Discrepancy(Kind.RUNNING_BALANCE, accountNumber,
+                            transaction.getDate(), transaction.getDescription(), running, transaction.getBalance()));
+                    reported = true;
+                }
+                String reference = transaction.getReference();
+                if (reference != null) {
+                    Leg leg = new Leg(accountNumber, transaction.getDate(), transaction.getAmount());
+                    (transaction.getAmount() < 0 ? partial.debits : partial.credits).put(reference, leg);
+                }
+            }
+            if (Math.abs(running - balance) > TOLERANCE) {
+                partial.discrepancies.add(new Discrepancy(Kind.ACCOUNT_BALANCE, accountNumber, null,
+                        "account balance vs sum of history", running, balance));
+            }
+        }
+    }
+}
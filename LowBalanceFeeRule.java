@@ -0,0 +1,17 @@
+class LowBalanceFeeRule implements EndOfDayRule {
+    private final double minimumBalance;
+    private final double fee;
+
+    public LowBalanceFeeRule(double minimumBalance, double fee) {
+        this.minimumBalance = minimumBalance;
+        this.fee = fee;
+    }
+
+    @Override
+    public double apply(BankAccount account, String businessDate) {
+        if (account.getBalance() >= minimumBalance) return 0;
+        // Never take the account below zero
+        double charge = Math.min(fee, account.getBalance());
+        return account.debit("Low balance fee " + businessDate, charge, businessDate) ? -charge : 0;
+    }
+}
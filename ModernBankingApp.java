@@ -4,187 +4,19 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.plaf.basic.BasicScrollBarUI;
-
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.*;
-
-class BankAccount implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private String accountNumber;
-    private String name;
-    private String address;
-    private String phone;
-    private double balance;
-    private String password;
-    private List<Transaction> transactions;
-
-    public BankAccount(String accountNumber, String name, String address, String phone, double balance, String password) {
-        this.accountNumber = accountNumber;
-        this.name = name;
-        this.address = address;
-        this.phone = phone;
-        this.balance = balance;
-        this.password = hashPassword(password);
-        this.transactions = new ArrayList<>();
-        this.addTransaction("Account opened", balance, balance);
-    }
-
-    public String getAccountNumber() { return accountNumber; }
-    public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
-    public String getAddress() { return address; }
-    public void setAddress(String address) { this.address = address; }
-    public String getPhone() { return phone; }
-    public void setPhone(String phone) { this.phone = phone; }
-    public double getBalance() { return balance; }
-
-    public boolean verifyPassword(String inputPassword) {
-        return this.password.equals(hashPassword(inputPassword));
-    }
-
-    public void changePassword(String newPassword) {
-        this.password = hashPassword(newPassword);
-    }
-
-    public void deposit(double amount) {
-        if (amount > 0) {
-            this.balance += amount;
-            this.addTransaction("Deposit", amount, this.balance);
-        }
-    }
-
-    public boolean withdraw(double amount) {
-        if (amount > 0 && this.balance >= amount) {
-            this.balance -= amount;
-            this.addTransaction("Withdrawal", -amount, this.balance);
-            return true;
-        }
-        return false;
-    }
-
-    public void addTransaction(String description, double amount, double balance) {
-        transactions.add(new Transaction(description, amount, balance));
-    }
-
-    public List<Transaction> getTransactions() {
-        return transactions;
-    }
-
-    @Override
-    public String toString() {
-        return String.format("Account Number: %s\nName: %s\nAddress: %s\nPhone: %s\nBalance: Rs.%,.2f",
-                accountNumber, name, address, phone, balance);
-    }
-
-    private String hashPassword(String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hashedBytes = md.digest(password.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hashedBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Hashing algorithm not available", e);
-        }
-    }
-}
-
-class Transaction implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private String date;
-    private String description;
-    private double amount;
-    private double balance;
-
-    public Transaction(String description, double amount, double balance) {
-        this.date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        this.description = description;
-        this.amount = amount;
-        this.balance = balance;
-    }
-
-    public String getDate() { return date; }
-    public String getDescription() { return description; }
-    public double getAmount() { return amount; }
-    public double getBalance() { return balance; }
-
-    @Override
-    public String toString() {
-        return String.format("%-20s %-15s Rs.%,12.2f Rs.%,12.2f", date, description, amount, balance);
-    }
-}
-
-class BankSystem {
-    private Map<String, BankAccount> accounts;
-    private static final String DATA_FILE = System.getProperty("user.home") + "/bank_data.dat";
-
-    public BankSystem() {
-        this.accounts = new HashMap<>();
-        loadData();
-    }
-
-    public String registerAccount(String name, String address, String phone, double initialDeposit, String password) {
-        String accountNumber = generateAccountNumber();
-        accounts.put(accountNumber, new BankAccount(accountNumber, name, address, phone, initialDeposit, password));
-        saveData();
-        return accountNumber;
-    }
-
-    public BankAccount login(String accountNumber, String password) {
-        BankAccount account = accounts.get(accountNumber);
-        return (account != null && account.verifyPassword(password)) ? account : null;
-    }
-
-    public boolean transferFunds(String fromAccount, String toAccount, double amount) {
-        BankAccount sender = accounts.get(fromAccount);
-        BankAccount receiver = accounts.get(toAccount);
-
-        if (sender != null && receiver != null && sender.withdraw(amount)) {
-            receiver.deposit(amount);
-            saveData();
-            return true;
-        }
-        return false;
-    }
-
-    public boolean accountExists(String accountNumber) {
-        return accounts.containsKey(accountNumber);
-    }
-
-    public String generateAccountNumber() {
-        return String.format("%08d", new Random().nextInt(100000000));
-    }
-
-    @SuppressWarnings("unchecked")
-    private void loadData() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-            accounts = (Map<String, BankAccount>) ois.readObject();
-        } catch (Exception e) {
-            accounts = new HashMap<>();
-        }
-    }
-
-    public void saveData() {
-        try {
-            File tempFile = new File(DATA_FILE + ".tmp");
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tempFile))) {
-                oos.writeObject(accounts);
-            }
-            new File(DATA_FILE).delete();
-            tempFile.renameTo(new File(DATA_FILE));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-}
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
 
 public class ModernBankingApp extends JFrame {
-    private BankSystem bankSystem = new BankSystem();
+    private BankSystem bankSystem;
     private BankAccount currentAccount;
     private CardLayout cardLayout = new CardLayout();
     private JPanel cardPanel = new JPanel(cardLayout);
@@ -213,21 +45,51 @@ public class ModernBankingApp extends JFrame {
     private final java.awt.Font BUTTON_FONT = new java.awt.Font("Segoe UI", java.awt.Font.BOLD, 14);
     private final java.awt.Font BALANCE_FONT = new java.awt.Font("Segoe UI", java.awt.Font.BOLD, 36);
     
-    // UI Components
-    private LoginPanel loginPanel;
-    private MainMenuPanel mainMenuPanel;
-    private AccountInfoPanel accountInfoPanel;
-    private TransactionPanel transactionPanel;
-    private StatementPanel statementPanel;
-    private PasswordChangePanel passwordChangePanel;
-    private UpdateInfoPanel updateInfoPanel;
+    // Set -Dbank.debug.paintTiming=true to log average background repaint cost
+    private static final boolean PAINT_TIMING = Boolean.getBoolean("bank.debug.paintTiming");
+    
+    // UI Components - screens are built on first use by the registry
+    private ScreenRegistry screens;
+    private final CommandRunner commands = new CommandRunner(Long.getLong("bank.command.timeoutMillis", 10000));
 
+    // Builds the UI only; data is attached once loading finishes so the two can overlap
     public ModernBankingApp() {
         configureFrame();
         initializePanels();
         showLoginScreen();
     }
 
+    public void attachBankSystem(BankSystem bankSystem) {
+        this.bankSystem = bankSystem;
+        bankSystem.subscribe(this::onBankEvent);
+        // Due and missed standing instructions are posted in the background while the app is open
+        new StandingInstructionScheduler(bankSystem).start();
+        // -Dbank.replication.port ships every change to standbys started with "BankCli standby"
+        Integer replicationPort = Integer.getInteger("bank.replication.port");
+        if (replicationPort != null) {
+            try {
+                new ReplicationPrimary(bankSystem).start(replicationPort);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Screens apply deltas from the change stream instead of rebuilding on every show
+    private void onBankEvent(BankEvent event) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> onBankEvent(event));
+            return;
+        }
+        // Screens that have not been built yet refresh fully when first shown
+        MainMenuPanel mainMenu = screens.peek("MAIN_MENU");
+        if (mainMenu != null) mainMenu.applyEvent(event);
+        AccountInfoPanel accountInfo = screens.peek("ACCOUNT_INFO");
+        if (accountInfo != null) accountInfo.applyEvent(event);
+        StatementPanel statement = screens.peek("STATEMENT");
+        if (statement != null) statement.applyEvent(event);
+    }
+
     private void configureFrame() {
         setTitle("SecureBank Pro - Professional Banking System");
         setSize(1100, 800);
@@ -243,7 +105,10 @@ public class ModernBankingApp extends JFrame {
         }
         
         try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            // main() normally installs the look and feel already
+            if (!UIManager.getLookAndFeel().getClass().getName().equals(UIManager.getSystemLookAndFeelClassName())) {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            }
             // Customize UI defaults
             UIManager.put("Button.focus", new Color(0, 0, 0, 0));
             UIManager.put("ScrollBar.thumb", ACCENT_COLOR);
@@ -256,33 +121,90 @@ public class ModernBankingApp extends JFrame {
         System.setProperty("awt.useSystemAAFontSettings", "on");
         System.setProperty("swing.aatext", "true");
         
-        // Professional gradient background
-        cardPanel = new JPanel(cardLayout) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
-                // Create sophisticated gradient
-                GradientPaint gp = new GradientPaint(
-                    0, 0, new Color(240, 248, 255),
-                    getWidth(), getHeight(), new Color(230, 245, 255)
-                );
-                g2d.setPaint(gp);
-                g2d.fillRect(0, 0, getWidth(), getHeight());
-                
-                // Add subtle pattern
-                g2d.setColor(new Color(255, 255, 255, 30));
-                for (int x = 0; x < getWidth(); x += 50) {
-                    for (int y = 0; y < getHeight(); y += 50) {
-                        g2d.fillOval(x, y, 2, 2);
-                    }
+        // Professional gradient background, rendered once and blitted on repaint
+        cardPanel = new BackgroundPanel(cardLayout);
+        add(cardPanel);
+    }
+
+    class BackgroundPanel extends JPanel {
+        private BufferedImage cache;
+        private double cacheScale;
+        private long paintCount;
+        private long paintNanos;
+
+        BackgroundPanel(LayoutManager layout) {
+            super(layout);
+            // Theme changes invalidate the pre-rendered background
+            UIManager.addPropertyChangeListener(e -> {
+                if ("lookAndFeel".equals(e.getPropertyName())) {
+                    invalidateBackground();
                 }
+            });
+        }
+
+        public void invalidateBackground() {
+            cache = null;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            long start = System.nanoTime();
+            Graphics2D g2d = (Graphics2D) g;
+            
+            // Render at device resolution so HiDPI displays stay sharp
+            double scale = g2d.getTransform().getScaleX();
+            int width = (int) Math.ceil(getWidth() * scale);
+            int height = (int) Math.ceil(getHeight() * scale);
+            if (width <= 0 || height <= 0) return;
+            
+            if (cache == null || cache.getWidth() != width || cache.getHeight() != height || cacheScale != scale) {
+                cache = renderBackground(width, height, scale);
+                cacheScale = scale;
             }
-        };
-        add(cardPanel);
+            g2d.drawImage(cache, 0, 0, getWidth(), getHeight(), null);
+            
+            if (PAINT_TIMING) {
+                paintNanos += System.nanoTime() - start;
+                if (++paintCount % 100 == 0) {
+                    System.out.printf("Background paint: %d paints, avg %.3f ms at %dx%d%n",
+                        paintCount, paintNanos / 1_000_000.0 / paintCount, width, height);
+                }
+            }
+        }
+
+        private BufferedImage renderBackground(int width, int height, double scale) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            BufferedImage image = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            
+            Graphics2D g2d = image.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.scale(scale, scale);
+            int logicalWidth = getWidth();
+            int logicalHeight = getHeight();
+            
+            // Create sophisticated gradient
+            GradientPaint gp = new GradientPaint(
+                0, 0, new Color(240, 248, 255),
+                logicalWidth, logicalHeight, new Color(230, 245, 255)
+            );
+            g2d.setPaint(gp);
+            g2d.fillRect(0, 0, logicalWidth, logicalHeight);
+            
+            // Add subtle pattern
+            g2d.setColor(new Color(255, 255, 255, 30));
+            for (int x = 0; x < logicalWidth; x += 50) {
+                for (int y = 0; y < logicalHeight; y += 50) {
+                    g2d.fillOval(x, y, 2, 2);
+                }
+            }
+            
+            g2d.dispose();
+            return image;
+        }
     }
 
     private java.awt.Image createBankIcon() {
@@ -304,31 +226,324 @@ public class ModernBankingApp extends JFrame {
     }
 
     private void initializePanels() {
-        loginPanel = new LoginPanel();
-        mainMenuPanel = new MainMenuPanel();
-        accountInfoPanel = new AccountInfoPanel();
-        transactionPanel = new TransactionPanel();
-        statementPanel = new StatementPanel();
-        passwordChangePanel = new PasswordChangePanel();
-        updateInfoPanel = new UpdateInfoPanel();
-
-        cardPanel.add(loginPanel, "LOGIN");
-        cardPanel.add(mainMenuPanel, "MAIN_MENU");
-        cardPanel.add(accountInfoPanel, "ACCOUNT_INFO");
-        cardPanel.add(transactionPanel, "TRANSACTION");
-        cardPanel.add(statementPanel, "STATEMENT");
-        cardPanel.add(passwordChangePanel, "PASSWORD_CHANGE");
-        cardPanel.add(updateInfoPanel, "UPDATE_INFO");
+        screens = new ScreenRegistry(Integer.getInteger("bank.ui.maxScreens", 4));
+        screens.register("LOGIN", LoginPanel::new);
+        screens.register("MAIN_MENU", MainMenuPanel::new);
+        screens.register("ACCOUNT_INFO", AccountInfoPanel::new);
+        screens.register("TRANSACTION", TransactionPanel::new);
+        screens.register("STATEMENT", StatementPanel::new);
+        screens.register("PASSWORD_CHANGE", PasswordChangePanel::new);
+        screens.register("UPDATE_INFO", UpdateInfoPanel::new);
+        screens.pin("LOGIN");
+        screens.pin("MAIN_MENU");
     }
 
     private void showLoginScreen() {
-        cardLayout.show(cardPanel, "LOGIN");
-        loginPanel.clearFields();
+        screens.show("LOGIN");
+        loginPanel().clearFields();
+        screens.prewarm("MAIN_MENU");
     }
 
     private void showMainMenu() {
-        mainMenuPanel.updateWelcomeMessage();
-        cardLayout.show(cardPanel, "MAIN_MENU");
+        mainMenuPanel().updateWelcomeMessage();
+        screens.show("MAIN_MENU");
+        screens.prewarm("TRANSACTION", "STATEMENT");
+    }
+
+    private LoginPanel loginPanel() { return screens.get("LOGIN"); }
+    private MainMenuPanel mainMenuPanel() { return screens.get("MAIN_MENU"); }
+    private AccountInfoPanel accountInfoPanel() { return screens.get("ACCOUNT_INFO"); }
+    private TransactionPanel transactionPanel() { return screens.get("TRANSACTION"); }
+    private StatementPanel statementPanel() { return screens.get("STATEMENT"); }
+    private PasswordChangePanel passwordChangePanel() { return screens.get("PASSWORD_CHANGE"); }
+
+    // Builds each card the first time it is needed and drops the least recently
+    // used hidden cards once more than maxBuilt exist or the heap is nearly full.
+    class ScreenRegistry {
+        private final int maxBuilt;
+        private final Map<String, java.util.function.Supplier<? extends JPanel>> factories = new HashMap<>();
+        private final Map<String, JPanel> built = new LinkedHashMap<>(16, 0.75f, true);
+        private final Set<String> pinned = new HashSet<>();
+        private String current;
+
+        ScreenRegistry(int maxBuilt) {
+            this.maxBuilt = maxBuilt;
+        }
+
+        public void register(String name, java.util.function.Supplier<? extends JPanel> factory) {
+            factories.put(name, factory);
+        }
+
+        // Pinned screens are never evicted
+        public void pin(String name) {
+            pinned.add(name);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T extends JPanel> T get(String name) {
+            JPanel panel = built.get(name);
+            if (panel == null) {
+                panel = factories.get(name).get();
+                built.put(name, panel);
+                cardPanel.add(panel, name);
+            }
+            return (T) panel;
+        }
+
+        // Returns the screen only if it is currently built
+        @SuppressWarnings("unchecked")
+        public <T extends JPanel> T peek(String name) {
+            return (T) built.get(name);
+        }
+
+        public void show(String name) {
+            get(name);
+            current = name;
+            cardLayout.show(cardPanel, name);
+            evict();
+        }
+
+        // Builds the given screens one per EDT turn after the current screen has painted
+        public void prewarm(String... names) {
+            javax.swing.Timer timer = new javax.swing.Timer(200, null);
+            Iterator<String> pending = Arrays.asList(names).iterator();
+            timer.addActionListener(e -> {
+                while (pending.hasNext()) {
+                    String name = pending.next();
+                    if (!built.containsKey(name)) {
+                        get(name);
+                        evict();
+                        return;
+                    }
+                }
+                timer.stop();
+            });
+            timer.start();
+        }
+
+        private void evict() {
+            Runtime runtime = Runtime.getRuntime();
+            boolean lowMemory = runtime.totalMemory() - runtime.freeMemory() > runtime.maxMemory() * 0.8;
+            Iterator<Map.Entry<String, JPanel>> it = built.entrySet().iterator();
+            while (it.hasNext() && (lowMemory || built.size() > maxBuilt)) {
+                Map.Entry<String, JPanel> entry = it.next();
+                if (entry.getKey().equals(current) || pinned.contains(entry.getKey())) continue;
+                cardPanel.remove(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    // Times every event dispatched on the EDT. A histogram of dispatch latency is kept,
+    // and a watchdog thread captures the EDT stack when a dispatch runs past the threshold.
+    static class EdtWatchdog extends EventQueue {
+        private static final long[] BUCKET_LIMITS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+        private static final long MAX_LOG_BYTES = 1024 * 1024;
+
+        private final long thresholdNanos;
+        private final File logFile;
+        private final java.util.concurrent.atomic.AtomicLongArray histogram =
+            new java.util.concurrent.atomic.AtomicLongArray(BUCKET_LIMITS_MS.length + 1);
+        private volatile Thread dispatchThread;
+        private volatile AWTEvent currentEvent;
+        private volatile long dispatchStart;
+        private volatile long reportedStart;
+        private int depth;
+        private boolean outerPumped;
+
+        private EdtWatchdog(long thresholdMillis, File logFile) {
+            this.thresholdNanos = thresholdMillis * 1_000_000L;
+            this.logFile = logFile;
+        }
+
+        public static EdtWatchdog install(long thresholdMillis, File logFile) {
+            EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis, logFile);
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+            
+            Thread monitor = daemonThread(watchdog::monitor, "edt-watchdog");
+            monitor.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> watchdog.log("Exit " + watchdog.histogramSummary())));
+            return watchdog;
+        }
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            dispatchThread = Thread.currentThread();
+            // Modal dialogs pump nested events; the outer event is then waiting, not stalled
+            if (depth > 0) {
+                outerPumped = true;
+            }
+            depth++;
+            AWTEvent outerEvent = currentEvent;
+            long start = System.nanoTime();
+            currentEvent = event;
+            dispatchStart = start;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                depth--;
+                if (depth == 0) {
+                    if (!outerPumped) {
+                        record(event, elapsed);
+                    }
+                    outerPumped = false;
+                    currentEvent = null;
+                    dispatchStart = 0;
+                } else {
+                    // Back in the outer event's secondary loop, which waits for input by design
+                    record(event, elapsed);
+                    currentEvent = outerEvent;
+                    dispatchStart = 0;
+                }
+            }
+        }
+
+        private void record(AWTEvent event, long elapsedNanos) {
+            long millis = elapsedNanos / 1_000_000L;
+            int bucket = 0;
+            while (bucket < BUCKET_LIMITS_MS.length && millis >= BUCKET_LIMITS_MS[bucket]) {
+                bucket++;
+            }
+            histogram.incrementAndGet(bucket);
+            if (elapsedNanos > thresholdNanos) {
+                log(String.format("Dispatch took %d ms: %s", millis, describe(event)));
+            }
+        }
+
+        private void monitor() {
+            long pollMillis = Math.max(10, thresholdNanos / 2_000_000L);
+            while (true) {
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long start = dispatchStart;
+                Thread edt = dispatchThread;
+                if (start == 0 || edt == null || start == reportedStart) continue;
+                
+                long elapsed = System.nanoTime() - start;
+                if (elapsed > thresholdNanos) {
+                    reportedStart = start;
+                    StringBuilder sb = new StringBuilder();
+                    sb.append(String.format("EDT stalled for %d ms in %s%n", elapsed / 1_000_000L, describe(currentEvent)));
+                    for (StackTraceElement frame : edt.getStackTrace()) {
+                        sb.append("    at ").append(frame).append(System.lineSeparator());
+                    }
+                    sb.append(histogramSummary());
+                    log(sb.toString());
+                }
+            }
+        }
+
+        public String histogramSummary() {
+            StringBuilder sb = new StringBuilder("EDT dispatch latency:");
+            for (int i = 0; i < histogram.length(); i++) {
+                long count = histogram.get(i);
+                if (count == 0) continue;
+                sb.append(i < BUCKET_LIMITS_MS.length ? " <" + BUCKET_LIMITS_MS[i] + "ms=" : " >=1024ms=").append(count);
+            }
+            return sb.toString();
+        }
+
+        private static String describe(AWTEvent event) {
+            if (event == null) return "unknown event";
+            Object source = event.getSource();
+            return event.getClass().getSimpleName() + " id=" + event.getID() +
+                (source != null ? " from " + source.getClass().getName() : "");
+        }
+
+        // Rolls the log to a single .1 backup once it passes MAX_LOG_BYTES
+        private synchronized void log(String message) {
+            if (logFile.length() > MAX_LOG_BYTES) {
+                File backup = new File(logFile.getPath() + ".1");
+                backup.delete();
+                logFile.renameTo(backup);
+            }
+            try (PrintWriter out = new PrintWriter(new FileWriter(logFile, true))) {
+                out.println(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " " + message);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Runs banking operations off the EDT and hands results back on it. Commands run one
+    // at a time on a single worker so account mutations keep their submission order.
+    class CommandRunner {
+        private final long timeoutMillis;
+        private final java.util.concurrent.ExecutorService worker =
+            java.util.concurrent.Executors.newSingleThreadExecutor(r -> daemonThread(r, "bank-command"));
+        private final java.util.concurrent.ScheduledExecutorService watchdog =
+            java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> daemonThread(r, "bank-command-timeout"));
+
+        CommandRunner(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        // Disables controls while the command is in flight; onSuccess runs on the EDT
+        public <T> void submit(Component parent, java.util.concurrent.Callable<T> command,
+                               java.util.function.Consumer<T> onSuccess, Component... controls) {
+            setEnabled(controls, false);
+            java.util.concurrent.atomic.AtomicBoolean finished = new java.util.concurrent.atomic.AtomicBoolean();
+            
+            java.util.concurrent.ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+                if (finished.compareAndSet(false, true)) {
+                    SwingUtilities.invokeLater(() -> {
+                        setEnabled(controls, true);
+                        JOptionPane.showMessageDialog(parent, 
+                            "<html><div style='color:#d32f2f; font-size:12pt;'>The operation is taking longer than expected.<br>" +
+                            "It may still complete - please check your balance.</div></html>", 
+                            "Timeout", 
+                            JOptionPane.WARNING_MESSAGE);
+                    });
+                }
+            }, timeoutMillis, java.util.concurrent.TimeUnit.MILLISECONDS);
+            
+            worker.execute(() -> {
+                T result = null;
+                Exception failure = null;
+                try {
+                    result = command.call();
+                } catch (Exception e) {
+                    failure = e;
+                }
+                // A command that already timed out reports nothing more to the UI
+                if (!finished.compareAndSet(false, true)) return;
+                timeout.cancel(false);
+                
+                T value = result;
+                Exception error = failure;
+                SwingUtilities.invokeLater(() -> {
+                    setEnabled(controls, true);
+                    if (error != null) {
+                        JOptionPane.showMessageDialog(parent, 
+                            "<html><div style='color:#d32f2f; font-size:12pt;'>Operation failed: " + error.getMessage() + "</div></html>", 
+                            "Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        onSuccess.accept(value);
+                    }
+                });
+            });
+        }
+
+        private void setEnabled(Component[] controls, boolean enabled) {
+            for (Component control : controls) {
+                control.setEnabled(enabled);
+            }
+        }
+    }
+
+    private static Thread daemonThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private boolean isDisplaying(BankAccount displayedAccount, BankEvent event) {
+        return displayedAccount != null && displayedAccount.getAccountNumber().equals(event.getAccountNumber());
     }
 
     // Utility method for consistent currency formatting
@@ -336,30 +551,93 @@ public class ModernBankingApp extends JFrame {
         return "Rs." + String.format("%,.2f", amount);
     }
 
+    // Shared cache of rendered button backgrounds keyed by size, color and state.
+    // Only touched from the EDT. Text is still painted by the look and feel, so
+    // buttons of the same size and color share entries.
+    static class ButtonRenderCache {
+        enum State { NORMAL, HOVER, PRESSED }
+
+        private static final int MAX_ENTRIES = 128;
+
+        private final Map<String, BufferedImage> images = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+        public BufferedImage get(int width, int height, double scale, Color color, State state) {
+            int pixelWidth = Math.max(1, (int) Math.ceil(width * scale));
+            int pixelHeight = Math.max(1, (int) Math.ceil(height * scale));
+            String key = pixelWidth + "x" + pixelHeight + ":" + color.getRGB() + ":" + state;
+            BufferedImage image = images.get(key);
+            if (image == null) {
+                image = render(pixelWidth, pixelHeight, scale, color, state);
+                images.put(key, image);
+            }
+            return image;
+        }
+
+        public int size() {
+            return images.size();
+        }
+
+        private BufferedImage render(int pixelWidth, int pixelHeight, double scale, Color color, State state) {
+            BufferedImage image = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = image.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.scale(scale, scale);
+            int width = (int) Math.round(pixelWidth / scale);
+            int height = (int) Math.round(pixelHeight / scale);
+            
+            // Create gradient background
+            Color startColor;
+            Color endColor;
+            switch (state) {
+                case HOVER:
+                    startColor = color.brighter();
+                    endColor = color;
+                    break;
+                case PRESSED:
+                    startColor = color.darker();
+                    endColor = color;
+                    break;
+                default:
+                    startColor = color;
+                    endColor = color.darker();
+                    break;
+            }
+            
+            GradientPaint gp = new GradientPaint(0, 0, startColor, 0, height, endColor);
+            g2d.setPaint(gp);
+            g2d.fillRoundRect(0, 0, width, height, 12, 12);
+            
+            // Add subtle shadow when hovered
+            if (state == State.HOVER) {
+                g2d.setColor(new Color(0, 0, 0, 20));
+                g2d.fillRoundRect(2, 2, width, height, 12, 12);
+            }
+            
+            g2d.dispose();
+            return image;
+        }
+    }
+
+    private final ButtonRenderCache buttonRenderCache = new ButtonRenderCache();
+
     protected JButton createModernButton(String text, Color bgColor, ActionListener action) {
         JButton button = new JButton(text) {
-            private boolean hovered = false;
-            
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
-                // Create gradient background
-                Color startColor = hovered ? bgColor.brighter() : bgColor;
-                Color endColor = hovered ? bgColor : bgColor.darker();
-                
-                GradientPaint gp = new GradientPaint(0, 0, startColor, 0, getHeight(), endColor);
-                g2d.setPaint(gp);
-                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 12, 12);
-                
-                // Add subtle shadow when hovered
-                if (hovered) {
-                    g2d.setColor(new Color(0, 0, 0, 20));
-                    g2d.fillRoundRect(2, 2, getWidth(), getHeight(), 12, 12);
-                }
+                Graphics2D g2d = (Graphics2D) g;
+                ButtonRenderCache.State state = getModel().isPressed() ? ButtonRenderCache.State.PRESSED
+                    : Boolean.TRUE.equals(getClientProperty("hovered")) ? ButtonRenderCache.State.HOVER
+                    : ButtonRenderCache.State.NORMAL;
                 
-                g2d.dispose();
+                // Pre-rendered background, drawn as a single blit
+                double scale = g2d.getTransform().getScaleX();
+                g2d.drawImage(buttonRenderCache.get(getWidth(), getHeight(), scale, bgColor, state),
+                    0, 0, getWidth(), getHeight(), null);
                 super.paintComponent(g);
             }
         };
@@ -428,6 +706,8 @@ public class ModernBankingApp extends JFrame {
     class LoginPanel extends JPanel {
         private JTextField accountField = new JTextField(20);
         private JPasswordField passwordField = new JPasswordField(20);
+        private JButton loginButton;
+        private JButton registerButton;
 
         public LoginPanel() {
             setOpaque(false);
@@ -538,8 +818,8 @@ public class ModernBankingApp extends JFrame {
             JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 0));
             buttonPanel.setOpaque(false);
             
-            JButton loginButton = createModernButton("SIGN IN", PRIMARY_COLOR, e -> attemptLogin());
-            JButton registerButton = createModernButton("REGISTER", ACCENT_COLOR, e -> showRegistrationDialog());
+            loginButton = createModernButton("SIGN IN", PRIMARY_COLOR, e -> attemptLogin());
+            registerButton = createModernButton("REGISTER", ACCENT_COLOR, e -> showRegistrationDialog());
             
             buttonPanel.add(loginButton);
             buttonPanel.add(registerButton);
@@ -557,15 +837,19 @@ public class ModernBankingApp extends JFrame {
         }
         
         private void attemptLogin() {
-            currentAccount = bankSystem.login(accountField.getText(), new String(passwordField.getPassword()));
-            if (currentAccount != null) {
-                showMainMenu();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "<html><div style='color:#d32f2f; font-size:12pt;'>Invalid account number or password</div></html>", 
-                    "Login Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            String accountNumber = accountField.getText();
+            String password = new String(passwordField.getPassword());
+            commands.submit(this, () -> bankSystem.login(accountNumber, password), account -> {
+                currentAccount = account;
+                if (currentAccount != null) {
+                    showMainMenu();
+                } else {
+                    JOptionPane.showMessageDialog(this, 
+                        "<html><div style='color:#d32f2f; font-size:12pt;'>Invalid account number or password</div></html>", 
+                        "Login Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }, loginButton, registerButton, accountField, passwordField);
         }
 
         private void showRegistrationDialog() {
@@ -610,29 +894,30 @@ public class ModernBankingApp extends JFrame {
                     return;
                 }
 
+                double deposit;
                 try {
-                    double deposit = Double.parseDouble(depositField.getText());
+                    deposit = Double.parseDouble(depositField.getText());
                     if (deposit < 0) throw new NumberFormatException();
-                    
-                    String accountNumber = bankSystem.registerAccount(
-                        nameField.getText(),
-                        addressField.getText(),
-                        phoneField.getText(),
-                        deposit,
-                        new String(passwordField.getPassword())
-                    );
-                    
-                    JOptionPane.showMessageDialog(this, 
-                        "<html><div style='font-size:12pt;'>Registration successful!<br>Your account number is: <b>" + 
-                        accountNumber + "</b></div></html>", 
-                        "Success", 
-                        JOptionPane.INFORMATION_MESSAGE);
                 } catch (NumberFormatException e) {
                     JOptionPane.showMessageDialog(this, 
                         "<html><div style='color:#d32f2f;'>Invalid deposit amount!</div></html>", 
                         "Registration Error", 
                         JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
+                
+                // Hashing the password and saving the data file happen on the command worker
+                String name = nameField.getText();
+                String address = addressField.getText();
+                String phone = phoneField.getText();
+                String password = new String(passwordField.getPassword());
+                commands.submit(this, () -> bankSystem.registerAccount(name, address, phone, deposit, password),
+                    accountNumber -> JOptionPane.showMessageDialog(this, 
+                        "<html><div style='font-size:12pt;'>Registration successful!<br>Your account number is: <b>" + 
+                        accountNumber + "</b></div></html>", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE),
+                    loginButton, registerButton, accountField, this.passwordField);
             }
         }
 
@@ -646,6 +931,8 @@ public class ModernBankingApp extends JFrame {
         private JLabel welcomeLabel = new JLabel();
         private JLabel balanceLabel = new JLabel("", JLabel.CENTER);
         private JLabel accountLabel = new JLabel("", JLabel.CENTER);
+        private JLabel monthLabel = new JLabel("", JLabel.CENTER);
+        private BankAccount displayedAccount;
 
         public MainMenuPanel() {
             setOpaque(false);
@@ -668,11 +955,17 @@ public class ModernBankingApp extends JFrame {
             accountLabel.setForeground(TEXT_SECONDARY);
             accountLabel.setHorizontalAlignment(SwingConstants.CENTER);
             
+            monthLabel.setFont(CAPTION_FONT);
+            monthLabel.setForeground(TEXT_SECONDARY);
+            monthLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            
             headerPanel.add(welcomeLabel);
             headerPanel.add(Box.createVerticalStrut(15));
             headerPanel.add(balanceLabel);
             headerPanel.add(Box.createVerticalStrut(10));
             headerPanel.add(accountLabel);
+            headerPanel.add(Box.createVerticalStrut(5));
+            headerPanel.add(monthLabel);
 
             // Quick actions with icons
             JPanel quickActionsPanel = createCardPanel("Quick Actions");
@@ -689,16 +982,16 @@ public class ModernBankingApp extends JFrame {
                 JButton btn = createModernButton(icon + " " + action, color, e -> {
                     switch (action) {
                         case "Deposit":
-                            transactionPanel.setTransactionType("Deposit");
-                            cardLayout.show(cardPanel, "TRANSACTION");
+                            transactionPanel().setTransactionType("Deposit");
+                            screens.show("TRANSACTION");
                             break;
                         case "Transfer":
-                            transactionPanel.setTransactionType("Transfer");
-                            cardLayout.show(cardPanel, "TRANSACTION");
+                            transactionPanel().setTransactionType("Transfer");
+                            screens.show("TRANSACTION");
                             break;
                         case "Statement":
-                            statementPanel.updateStatement();
-                            cardLayout.show(cardPanel, "STATEMENT");
+                            statementPanel().updateStatement();
+                            screens.show("STATEMENT");
                             break;
                         case "Logout":
                             currentAccount = null;
@@ -724,12 +1017,12 @@ public class ModernBankingApp extends JFrame {
             };
             
             Runnable[] menuActions = {
-                () -> { accountInfoPanel.updateInfo(); cardLayout.show(cardPanel, "ACCOUNT_INFO"); },
-                () -> { transactionPanel.setTransactionType("Deposit"); cardLayout.show(cardPanel, "TRANSACTION"); },
-                () -> { transactionPanel.setTransactionType("Withdraw"); cardLayout.show(cardPanel, "TRANSACTION"); },
-                () -> { transactionPanel.setTransactionType("Transfer"); cardLayout.show(cardPanel, "TRANSACTION"); },
-                () -> { statementPanel.updateStatement(); cardLayout.show(cardPanel, "STATEMENT"); },
-                () -> { passwordChangePanel.clearFields(); cardLayout.show(cardPanel, "PASSWORD_CHANGE"); }
+                () -> { accountInfoPanel().updateInfo(); screens.show("ACCOUNT_INFO"); },
+                () -> { transactionPanel().setTransactionType("Deposit"); screens.show("TRANSACTION"); },
+                () -> { transactionPanel().setTransactionType("Withdraw"); screens.show("TRANSACTION"); },
+                () -> { transactionPanel().setTransactionType("Transfer"); screens.show("TRANSACTION"); },
+                () -> { statementPanel().updateStatement(); screens.show("STATEMENT"); },
+                () -> { passwordChangePanel().clearFields(); screens.show("PASSWORD_CHANGE"); }
             };
             
             for (int i = 0; i < menuItems.length; i++) {
@@ -751,16 +1044,45 @@ public class ModernBankingApp extends JFrame {
         }
 
         public void updateWelcomeMessage() {
-            if (currentAccount != null) {
-                welcomeLabel.setText("Welcome back, " + currentAccount.getName());
-                balanceLabel.setText(formatCurrency(currentAccount.getBalance()));
-                accountLabel.setText("Account #" + currentAccount.getAccountNumber());
+            // Already showing this account; later changes arrive through applyEvent
+            if (currentAccount == null || currentAccount == displayedAccount) return;
+
+            displayedAccount = currentAccount;
+            welcomeLabel.setText("Welcome back, " + currentAccount.getName());
+            balanceLabel.setText(formatCurrency(currentAccount.getBalance()));
+            accountLabel.setText("Account #" + currentAccount.getAccountNumber());
+            updateMonthSummary();
+        }
+
+        private void updateMonthSummary() {
+            MonthlyAggregate month = displayedAccount.getMonthlyAggregate(MonthlyAggregate.currentMonth());
+            monthLabel.setText("This month: In " + formatCurrency(month.getTotalCredits()) +
+                "  |  Out " + formatCurrency(month.getTotalDebits()) +
+                "  |  " + month.getCount() + " transactions");
+        }
+
+        public void applyEvent(BankEvent event) {
+            if (!isDisplaying(displayedAccount, event)) return;
+
+            switch (event.getType()) {
+                case BALANCE_CHANGED:
+                    balanceLabel.setText(formatCurrency(event.getBalance()));
+                    break;
+                case TRANSACTION_APPENDED:
+                    updateMonthSummary();
+                    break;
+                case PROFILE_UPDATED:
+                    welcomeLabel.setText("Welcome back, " + displayedAccount.getName());
+                    break;
+                default:
+                    break;
             }
         }
     }
 
     class AccountInfoPanel extends JPanel {
         private JTextArea infoArea = new JTextArea(10, 30);
+        private BankAccount displayedAccount;
 
         public AccountInfoPanel() {
             setOpaque(false);
@@ -795,8 +1117,16 @@ public class ModernBankingApp extends JFrame {
         }
 
         public void updateInfo() {
+            if (currentAccount == null || currentAccount == displayedAccount) return;
+
+            displayedAccount = currentAccount;
             infoArea.setText(currentAccount.toString());
         }
+
+        public void applyEvent(BankEvent event) {
+            if (!isDisplaying(displayedAccount, event) || event.getType() == BankEvent.Type.TRANSACTION_APPENDED) return;
+            infoArea.setText(displayedAccount.toString());
+        }
     }
 
     class TransactionPanel extends JPanel {
@@ -804,6 +1134,7 @@ public class ModernBankingApp extends JFrame {
         private JLabel typeLabel = new JLabel("", JLabel.CENTER);
         private JTextField amountField = new JTextField(15);
         private JTextField accountField = new JTextField(15);
+        private JButton submitButton;
 
         public TransactionPanel() {
             setOpaque(false);
@@ -869,7 +1200,7 @@ public class ModernBankingApp extends JFrame {
             gbc.gridwidth = 2;
             add(formPanel, gbc);
 
-            JButton submitButton = createModernButton("Submit", ACCENT_COLOR, 
+            submitButton = createModernButton("Submit", ACCENT_COLOR, 
                 e -> processTransaction());
             
             JButton backButton = createModernButton("Back to Main Menu", PRIMARY_COLOR, 
@@ -910,68 +1241,220 @@ public class ModernBankingApp extends JFrame {
         }
 
         private void processTransaction() {
+            double amount;
             try {
-                double amount = Double.parseDouble(amountField.getText());
+                amount = Double.parseDouble(amountField.getText());
                 if (amount <= 0) throw new NumberFormatException();
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(this, 
+                    "<html><div style='color:#d32f2f; font-size:12pt;'>Invalid amount!</div></html>", 
+                    "Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
 
-                switch (transactionType) {
+            BankAccount account = currentAccount;
+            String type = transactionType;
+            String toAccount = accountField.getText().trim();
+            // Mistyped numbers are caught by the account filter without a round trip to the store
+            if (type.equals("Transfer") && !bankSystem.accountExists(toAccount)) {
+                JOptionPane.showMessageDialog(this, 
+                    "<html><div style='color:#d32f2f; font-size:12pt;'>Account " + toAccount + " not found!</div></html>", 
+                    "Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            commands.submit(this, () -> {
+                boolean success;
+                switch (type) {
                     case "Deposit":
-                        currentAccount.deposit(amount);
-                        JOptionPane.showMessageDialog(this, 
-                            "<html><div style='font-size:12pt;'>Deposit of " + formatCurrency(amount) + 
-                            " successful!<br>New balance: " + formatCurrency(currentAccount.getBalance()) + "</div></html>", 
-                            "Success", 
-                            JOptionPane.INFORMATION_MESSAGE);
+                        account.deposit(amount);
+                        success = true;
                         break;
                     case "Withdraw":
-                        if (currentAccount.withdraw(amount)) {
-                            JOptionPane.showMessageDialog(this, 
-                                "<html><div style='font-size:12pt;'>Withdrawal of " + formatCurrency(amount) + 
-                                " successful!<br>New balance: " + formatCurrency(currentAccount.getBalance()) + "</div></html>", 
-                                "Success", 
-                                JOptionPane.INFORMATION_MESSAGE);
-                        } else {
-                            JOptionPane.showMessageDialog(this, 
-                                "<html><div style='color:#d32f2f; font-size:12pt;'>Insufficient funds!</div></html>", 
-                                "Error", 
-                                JOptionPane.ERROR_MESSAGE);
-                            return;
-                        }
+                        success = account.withdraw(amount);
                         break;
                     case "Transfer":
-                        String toAccount = accountField.getText();
-                        if (bankSystem.transferFunds(currentAccount.getAccountNumber(), toAccount, amount)) {
-                            JOptionPane.showMessageDialog(this, 
-                                "<html><div style='font-size:12pt;'>Transfer of " + formatCurrency(amount) + 
-                                " to account " + toAccount + " successful!<br>New balance: " + 
-                                formatCurrency(currentAccount.getBalance()) + "</div></html>", 
-                                "Success", 
-                                JOptionPane.INFORMATION_MESSAGE);
-                        } else {
-                            JOptionPane.showMessageDialog(this, 
-                                "<html><div style='color:#d32f2f; font-size:12pt;'>Transfer failed!<br>Check account number or balance.</div></html>", 
-                                "Error", 
-                                JOptionPane.ERROR_MESSAGE);
-                            return;
-                        }
+                        success = bankSystem.transferFunds(account.getAccountNumber(), toAccount, amount);
+                        break;
+                    default:
+                        success = false;
                         break;
                 }
-                bankSystem.saveData();
-                showMainMenu();
-            } catch (NumberFormatException e) {
-                JOptionPane.showMessageDialog(this, 
-                    "<html><div style='color:#d32f2f; font-size:12pt;'>Invalid amount!</div></html>", 
-                    "Error", 
-                    JOptionPane.ERROR_MESSAGE);
+                if (success) {
+                    bankSystem.saveData();
+                }
+                return success;
+            }, success -> showTransactionResult(type, amount, toAccount, account, success),
+                submitButton, amountField, accountField);
+        }
+
+        private String debitFailureReason(BankAccount account, double amount) {
+            if (VelocityGuard.get().wouldBlock(account.getAccountNumber(), amount)) {
+                return "Too many withdrawals in a short time. Please try again later.";
+            }
+            return "Insufficient funds!";
+        }
+
+        private void showTransactionResult(String type, double amount, String toAccount, BankAccount account, boolean success) {
+            switch (type) {
+                case "Deposit":
+                    JOptionPane.showMessageDialog(this, 
+                        "<html><div style='font-size:12pt;'>Deposit of " + formatCurrency(amount) + 
+                        " successful!<br>New balance: " + formatCurrency(account.getBalance()) + "</div></html>", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    break;
+                case "Withdraw":
+                    if (success) {
+                        JOptionPane.showMessageDialog(this, 
+                            "<html><div style='font-size:12pt;'>Withdrawal of " + formatCurrency(amount) + 
+                            " successful!<br>New balance: " + formatCurrency(account.getBalance()) + "</div></html>", 
+                            "Success", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, 
+                            "<html><div style='color:#d32f2f; font-size:12pt;'>" + debitFailureReason(account, amount) + "</div></html>", 
+                            "Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    break;
+                case "Transfer":
+                    if (success) {
+                        JOptionPane.showMessageDialog(this, 
+                            "<html><div style='font-size:12pt;'>Transfer of " + formatCurrency(amount) + 
+                            " to account " + toAccount + " successful!<br>New balance: " + 
+                            formatCurrency(account.getBalance()) + "</div></html>", 
+                            "Success", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, 
+                            "<html><div style='color:#d32f2f; font-size:12pt;'>Transfer failed!<br>" + debitFailureReason(account, amount) + "</div></html>", 
+                            "Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    break;
+            }
+            showMainMenu();
+        }
+    }
+
+    // Table model that reads straight from the account's transaction list.
+    // Nothing is copied or pre-formatted; JTable only asks for visible rows.
+    // Postings append to that list on other threads, so the model keeps its own row
+    // count, advanced only on the EDT as TRANSACTION_APPENDED events arrive, and
+    // reads rows under the account monitor that guards the list.
+    class StatementTableModel extends AbstractTableModel {
+        private final String[] columns = {"Date", "Description", "Amount", "Balance"};
+        private BankAccount account;
+        // Rows read from the archive come first, then the account's live history
+        private List<Transaction> archived = Collections.emptyList();
+        private List<Transaction> transactions = Collections.emptyList();
+        private long archivedCount;
+        private int liveRows;
+
+        // Binds to the account's live history as it is now, after the given archived rows,
+        // which must be its whole archive. If it has been archived again since they were
+        // read, nothing changes and false is returned.
+        public boolean setTransactions(BankAccount account, List<Transaction> archived) {
+            synchronized (account) {
+                if (account.getArchivedCount() != archived.size()) return false;
+                this.transactions = account.getTransactions();
+                this.liveRows = transactions.size();
+                this.archivedCount = archived.size();
+            }
+            this.account = account;
+            this.archived = archived;
+            fireTableDataChanged();
+            return true;
+        }
+
+        // Live history only, while the archived rows are read
+        public void setLiveTransactions(BankAccount account) {
+            synchronized (account) {
+                this.transactions = account.getTransactions();
+                this.liveRows = transactions.size();
+                this.archivedCount = account.getArchivedCount();
+            }
+            this.account = account;
+            this.archived = Collections.emptyList();
+            fireTableDataChanged();
+        }
+
+        // Events for rows already counted, or for a live history since replaced by
+        // archiving, change nothing
+        public void rowAppended(BankEvent event) {
+            int index = event.getTransactionIndex();
+            if (event.getArchivedCount() != archivedCount || index < liveRows) return;
+            int first = archived.size() + liveRows;
+            liveRows = index + 1;
+            fireTableRowsInserted(first, archived.size() + index);
+        }
+
+        public Transaction getTransaction(int row) {
+            if (row < archived.size()) return archived.get(row);
+            synchronized (account) {
+                return transactions.get(row - archived.size());
+            }
+        }
+
+        @Override
+        public int getRowCount() { return archived.size() + liveRows; }
+
+        @Override
+        public int getColumnCount() { return columns.length; }
+
+        @Override
+        public String getColumnName(int column) { return columns[column]; }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column >= 2 ? Double.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Transaction t = getTransaction(row);
+            switch (column) {
+                case 0: return t.getDate();
+                case 1: return t.getDescription();
+                case 2: return t.getAmount();
+                default: return t.getBalance();
+            }
+        }
+
+        // Transactions are appended in date order, so a binary search finds
+        // the first row on or after the given date prefix. End-of-day entries are
+        // dated at the close of their business day, which can only move a jump
+        // by the few rows posted before the batch ran.
+        public int findFirstOnOrAfter(String date) {
+            int low = 0;
+            int high = getRowCount();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (getTransaction(mid).getDate().compareTo(date) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
             }
+            return low;
         }
     }
 
     class StatementPanel extends JPanel {
-        private JTextArea statementArea = new JTextArea(20, 60);
+        private StatementTableModel tableModel = new StatementTableModel();
+        private JTable statementTable = new JTable(tableModel);
+        private TableRowSorter<StatementTableModel> sorter = new TableRowSorter<>(tableModel);
+        private JTextField filterField = new JTextField(15);
+        private JTextField jumpField = new JTextField(10);
         private JButton pdfButton = createModernButton("[v] Download PDF", ACCENT_COLOR, e -> generatePDFStatement());
+        private JButton csvButton = createModernButton("[v] Export CSV", ACCENT_COLOR, e -> exportCsvStatement());
         private JLabel accountLabel;
         private JLabel balanceLabel;
+        private BankAccount displayedAccount;
 
         public StatementPanel() {
             setOpaque(false);
@@ -994,13 +1477,27 @@ public class ModernBankingApp extends JFrame {
             headerPanel.add(Box.createVerticalStrut(10));
             headerPanel.add(balanceLabel);
             
-            // Enhanced statement area
-            statementArea.setEditable(false);
-            statementArea.setFont(new java.awt.Font("Monospaced", java.awt.Font.PLAIN, 12));
-            statementArea.setBackground(SURFACE_COLOR);
-            statementArea.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+            // Statement table - rows are formatted by the renderers only when painted
+            statementTable.setRowSorter(sorter);
+            statementTable.setFont(BODY_FONT);
+            statementTable.setRowHeight(24);
+            statementTable.setFillsViewportHeight(true);
+            statementTable.setBackground(SURFACE_COLOR);
+            statementTable.setGridColor(DIVIDER_COLOR);
+            statementTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            statementTable.getTableHeader().setFont(BUTTON_FONT);
+            statementTable.getTableHeader().setReorderingAllowed(false);
+            
+            DefaultTableCellRenderer currencyRenderer = new DefaultTableCellRenderer() {
+                @Override
+                protected void setValue(Object value) {
+                    setText(value == null ? "" : formatCurrency((Double) value));
+                }
+            };
+            currencyRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+            statementTable.setDefaultRenderer(Double.class, currencyRenderer);
             
-            JScrollPane scrollPane = new JScrollPane(statementArea);
+            JScrollPane scrollPane = new JScrollPane(statementTable);
             scrollPane.setBorder(BorderFactory.createLineBorder(DIVIDER_COLOR, 1));
             scrollPane.setOpaque(false);
             scrollPane.getViewport().setOpaque(false);
@@ -1014,114 +1511,192 @@ public class ModernBankingApp extends JFrame {
                 }
             });
             
+            // Filter and jump-to-date controls
+            JPanel toolsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+            toolsPanel.setOpaque(false);
+            
+            JLabel filterLabel = new JLabel("Filter:");
+            filterLabel.setFont(BODY_FONT);
+            filterLabel.setForeground(TEXT_PRIMARY);
+            filterField.setFont(BODY_FONT);
+            filterField.getDocument().addDocumentListener(new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) { applyFilter(); }
+                @Override
+                public void removeUpdate(DocumentEvent e) { applyFilter(); }
+                @Override
+                public void changedUpdate(DocumentEvent e) { applyFilter(); }
+            });
+            
+            JLabel jumpLabel = new JLabel("Jump to date (yyyy-MM-dd):");
+            jumpLabel.setFont(BODY_FONT);
+            jumpLabel.setForeground(TEXT_PRIMARY);
+            jumpField.setFont(BODY_FONT);
+            jumpField.addKeyListener(new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                        jumpToDate();
+                    }
+                }
+            });
+            JButton jumpButton = createModernButton("[>] Go", PRIMARY_COLOR, e -> jumpToDate());
+            jumpButton.setPreferredSize(new Dimension(90, 35));
+            
+            toolsPanel.add(filterLabel);
+            toolsPanel.add(filterField);
+            toolsPanel.add(jumpLabel);
+            toolsPanel.add(jumpField);
+            toolsPanel.add(jumpButton);
+            
+            JPanel centerPanel = new JPanel(new BorderLayout(10, 10));
+            centerPanel.setOpaque(false);
+            centerPanel.add(toolsPanel, BorderLayout.NORTH);
+            centerPanel.add(scrollPane, BorderLayout.CENTER);
+            
             // Action buttons
             JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
             buttonPanel.setOpaque(false);
+            buttonPanel.add(csvButton);
             buttonPanel.add(pdfButton);
             buttonPanel.add(createModernButton("[<] Back", PRIMARY_COLOR, e -> showMainMenu()));
             
             add(headerPanel, BorderLayout.NORTH);
-            add(scrollPane, BorderLayout.CENTER);
+            add(centerPanel, BorderLayout.CENTER);
             add(buttonPanel, BorderLayout.SOUTH);
         }
         
         public void updateStatement() {
-            if (currentAccount == null) return;
+            // Already bound to this account; new rows arrive through applyEvent
+            if (currentAccount == null || currentAccount == displayedAccount) return;
+            
+            displayedAccount = currentAccount;
             
             // Update header labels with current account info
             accountLabel.setText("Account #" + currentAccount.getAccountNumber() + " - " + currentAccount.getName());
             balanceLabel.setText("Current Balance: " + formatCurrency(currentAccount.getBalance()));
             
-            StringBuilder sb = new StringBuilder();
-            sb.append(String.format("%-20s %-15s %12s %12s\n", "Date", "Description", "Amount", "Balance"));
-            sb.append("------------------------------------------------------------\n");
+            filterField.setText("");
+            jumpField.setText("");
+            tableModel.setLiveTransactions(currentAccount);
+            loadArchive(currentAccount);
+        }
+
+        // The archive is read off the EDT and bound when it arrives; until then the table
+        // keeps what it shows, and a failed read leaves the live history rather than
+        // nothing. A read overtaken by further archiving is dropped: the HISTORY_ARCHIVED
+        // event behind it starts a fresh one.
+        private void loadArchive(BankAccount account) {
+            long archivedCount = account.getArchivedCount();
+            if (archivedCount == 0) return;
+            commands.submit(this,
+                () -> bankSystem.getArchive().read(account.getAccountNumber(), archivedCount, null, null),
+                archived -> {
+                    if (account == displayedAccount) {
+                        tableModel.setTransactions(account, archived);
+                    }
+                });
+        }
+
+        public void applyEvent(BankEvent event) {
+            if (!isDisplaying(displayedAccount, event)) return;
+            
+            switch (event.getType()) {
+                case TRANSACTION_APPENDED:
+                    tableModel.rowAppended(event);
+                    break;
+                case HISTORY_ARCHIVED:
+                    loadArchive(displayedAccount);
+                    break;
+                case BALANCE_CHANGED:
+                    balanceLabel.setText("Current Balance: " + formatCurrency(event.getBalance()));
+                    break;
+                case PROFILE_UPDATED:
+                    accountLabel.setText("Account #" + displayedAccount.getAccountNumber() + " - " + displayedAccount.getName());
+                    break;
+            }
+        }
+
+        private void applyFilter() {
+            String text = filterField.getText().trim();
+            sorter.setRowFilter(text.isEmpty() ? null
+                : RowFilter.regexFilter("(?i)" + Pattern.quote(text), 1));
+        }
+
+        private void jumpToDate() {
+            String date = jumpField.getText().trim();
+            if (date.isEmpty()) return;
+            
+            // Skip rows hidden by the current filter
+            int viewRow = -1;
+            for (int row = tableModel.findFirstOnOrAfter(date); row < tableModel.getRowCount(); row++) {
+                viewRow = statementTable.convertRowIndexToView(row);
+                if (viewRow >= 0) break;
+            }
             
-            for (Transaction t : currentAccount.getTransactions()) {
-                sb.append(t.toString()).append("\n");
+            if (viewRow < 0) {
+                JOptionPane.showMessageDialog(this, 
+                    "<html><div style='color:#d32f2f; font-size:12pt;'>No transactions on or after " + date + "</div></html>", 
+                    "Statement", 
+                    JOptionPane.INFORMATION_MESSAGE);
+                return;
             }
+            statementTable.setRowSelectionInterval(viewRow, viewRow);
+            statementTable.scrollRectToVisible(statementTable.getCellRect(viewRow, 0, true));
+        }
+
+        private void exportCsvStatement() {
+            if (currentAccount == null) return;
             
-            sb.append("------------------------------------------------------------\n");
-            sb.append(String.format("%52s %s\n", "Current Balance:", formatCurrency(currentAccount.getBalance())));
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle("Export Transactions as CSV (.csv or .csv.gz)");
+            fileChooser.setSelectedFile(new File("Transactions_" + currentAccount.getAccountNumber() + ".csv"));
             
-            statementArea.setText(sb.toString());
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File file = fileChooser.getSelectedFile();
+                String fileName = file.getName().toLowerCase();
+                boolean compress = fileName.endsWith(".gz");
+                if (!compress && !fileName.endsWith(".csv")) {
+                    file = new File(file.getParentFile(), file.getName() + ".csv");
+                }
+                
+                // Reads every archived segment and writes the file, so it runs off the EDT
+                BankAccount account = currentAccount;
+                java.nio.file.Path path = file.toPath();
+                commands.submit(this,
+                    () -> TransactionCsvExporter.exportAccount(account, path, compress),
+                    result -> JOptionPane.showMessageDialog(this, 
+                        "Exported " + result, 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE),
+                    csvButton);
+            }
         }
 
         private void generatePDFStatement() {
             if (currentAccount == null) return;
             
-            try {
-                JFileChooser fileChooser = new JFileChooser();
-                fileChooser.setDialogTitle("Save Statement as PDF");
-                fileChooser.setSelectedFile(new File("BankStatement_" + currentAccount.getAccountNumber() + ".pdf"));
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle("Save Statement as PDF");
+            fileChooser.setSelectedFile(new File("BankStatement_" + currentAccount.getAccountNumber() + ".pdf"));
+            
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File chosen = fileChooser.getSelectedFile();
+                File file = chosen.getName().toLowerCase().endsWith(".pdf")
+                    ? chosen : new File(chosen.getParentFile(), chosen.getName() + ".pdf");
                 
-                if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-                    File file = fileChooser.getSelectedFile();
-                    if (!file.getName().toLowerCase().endsWith(".pdf")) {
-                        file = new File(file.getParentFile(), file.getName() + ".pdf");
-                    }
-                    
-                    // Use a font that supports rupee symbol
-                    BaseFont baseFont = BaseFont.createFont(
-                        BaseFont.HELVETICA, 
-                        BaseFont.CP1252, 
-                        BaseFont.EMBEDDED
-                    );
-                    
-                    Document document = new Document();
-                    PdfWriter.getInstance(document, new FileOutputStream(file));
-                    document.open();
-                    
-                    com.itextpdf.text.Font titleFont = new com.itextpdf.text.Font(baseFont, 18, com.itextpdf.text.Font.BOLD, BaseColor.BLUE);
-                    Paragraph title = new Paragraph("Bank Statement", titleFont);
-                    title.setAlignment(Element.ALIGN_CENTER);
-                    title.setSpacingAfter(20);
-                    document.add(title);
-                    
-                    com.itextpdf.text.Font infoFont = new com.itextpdf.text.Font(baseFont, 12);
-                    document.add(new Paragraph("Account Holder: " + currentAccount.getName(), infoFont));
-                    document.add(new Paragraph("Account Number: " + currentAccount.getAccountNumber(), infoFont));
-                    document.add(new Paragraph("Statement Date: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()), infoFont));
-                    document.add(new Paragraph(" "));
-                    
-                    PdfPTable table = new PdfPTable(4);
-                    table.setWidthPercentage(100);
-                    table.setSpacingBefore(10);
-                    table.setSpacingAfter(10);
-                    
-                    com.itextpdf.text.Font headerFont = new com.itextpdf.text.Font(baseFont, 12, com.itextpdf.text.Font.BOLD);
-                    table.addCell(new Phrase("Date", headerFont));
-                    table.addCell(new Phrase("Description", headerFont));
-                    table.addCell(new Phrase("Amount", headerFont));
-                    table.addCell(new Phrase("Balance", headerFont));
-                    
-                    com.itextpdf.text.Font dataFont = new com.itextpdf.text.Font(baseFont, 12);
-                    for (Transaction t : currentAccount.getTransactions()) {
-                        table.addCell(new Phrase(t.getDate(), dataFont));
-                        table.addCell(new Phrase(t.getDescription(), dataFont));
-                        table.addCell(new Phrase(formatCurrency(t.getAmount()), dataFont));
-                        table.addCell(new Phrase(formatCurrency(t.getBalance()), dataFont));
+                // Archived history is read from disk while the PDF is written, so off the EDT
+                BankAccount account = currentAccount;
+                commands.submit(this, () -> {
+                    try (OutputStream out = new FileOutputStream(file)) {
+                        StatementPdfWriter.write(account, out);
                     }
-                    
-                    document.add(table);
-                    
-                    com.itextpdf.text.Font balanceFont = new com.itextpdf.text.Font(baseFont, 14, com.itextpdf.text.Font.BOLD);
-                    Paragraph balance = new Paragraph("Current Balance: " + 
-                        formatCurrency(currentAccount.getBalance()), balanceFont);
-                    balance.setAlignment(Element.ALIGN_RIGHT);
-                    document.add(balance);
-                    
-                    document.close();
-                    
-                    JOptionPane.showMessageDialog(this, 
-                        "Statement saved as PDF successfully!", 
-                        "Success", 
-                        JOptionPane.INFORMATION_MESSAGE);
-                }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Error generating PDF: " + e.getMessage(), 
-                    "Error", 
-                    JOptionPane.ERROR_MESSAGE);
+                    return file;
+                }, written -> JOptionPane.showMessageDialog(this, 
+                    "Statement saved as PDF successfully!", 
+                    "Success", 
+                    JOptionPane.INFORMATION_MESSAGE),
+                    pdfButton);
             }
         }
     }
@@ -1130,6 +1705,7 @@ public class ModernBankingApp extends JFrame {
         private JPasswordField currentPasswordField = new JPasswordField(15);
         private JPasswordField newPasswordField = new JPasswordField(15);
         private JPasswordField confirmPasswordField = new JPasswordField(15);
+        private JButton submitButton;
 
         public PasswordChangePanel() {
             setOpaque(false);
@@ -1173,7 +1749,7 @@ public class ModernBankingApp extends JFrame {
             gbc.gridy = 1;
             add(formPanel, gbc);
 
-            JButton submitButton = createModernButton("Change Password", ACCENT_COLOR, 
+            submitButton = createModernButton("Change Password", ACCENT_COLOR, 
                 e -> changePassword());
             
             JButton backButton = createModernButton("Back to Main Menu", PRIMARY_COLOR, 
@@ -1208,20 +1784,26 @@ public class ModernBankingApp extends JFrame {
                 return;
             }
 
-            if (currentAccount.verifyPassword(currentPassword)) {
-                currentAccount.changePassword(newPassword);
+            BankAccount account = currentAccount;
+            commands.submit(this, () -> {
+                if (!account.verifyPassword(currentPassword)) return false;
+                account.changePassword(newPassword);
                 bankSystem.saveData();
-                JOptionPane.showMessageDialog(this, 
-                    "<html><div style='font-size:12pt;'>Password changed successfully!</div></html>", 
-                    "Success", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                showMainMenu();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "<html><div style='color:#d32f2f; font-size:12pt;'>Incorrect current password!</div></html>", 
-                    "Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
+                return true;
+            }, changed -> {
+                if (changed) {
+                    JOptionPane.showMessageDialog(this, 
+                        "<html><div style='font-size:12pt;'>Password changed successfully!</div></html>", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    showMainMenu();
+                } else {
+                    JOptionPane.showMessageDialog(this, 
+                        "<html><div style='color:#d32f2f; font-size:12pt;'>Incorrect current password!</div></html>", 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }, submitButton, currentPasswordField, newPasswordField, confirmPasswordField);
         }
 
         public void clearFields() {
@@ -1235,6 +1817,7 @@ public class ModernBankingApp extends JFrame {
         private JTextField nameField = new JTextField(20);
         private JTextField addressField = new JTextField(20);
         private JTextField phoneField = new JTextField(20);
+        private JButton submitButton;
 
         public UpdateInfoPanel() {
             setOpaque(false);
@@ -1278,7 +1861,7 @@ public class ModernBankingApp extends JFrame {
             gbc.gridy = 1;
             add(formPanel, gbc);
 
-            JButton submitButton = createModernButton("Update Information", ACCENT_COLOR, 
+            submitButton = createModernButton("Update Information", ACCENT_COLOR, 
                 e -> updateInfo());
             
             JButton backButton = createModernButton("Back to Main Menu", PRIMARY_COLOR, 
@@ -1309,24 +1892,52 @@ public class ModernBankingApp extends JFrame {
         }
 
         private void updateInfo() {
-            currentAccount.setName(nameField.getText());
-            currentAccount.setAddress(addressField.getText());
-            currentAccount.setPhone(phoneField.getText());
-            bankSystem.saveData();
-            JOptionPane.showMessageDialog(this, 
-                "<html><div style='font-size:12pt;'>Account information updated successfully!</div></html>", 
-                "Success", 
-                JOptionPane.INFORMATION_MESSAGE);
-            showMainMenu();
+            BankAccount account = currentAccount;
+            String name = nameField.getText();
+            String address = addressField.getText();
+            String phone = phoneField.getText();
+            commands.submit(this, () -> {
+                account.setName(name);
+                account.setAddress(address);
+                account.setPhone(phone);
+                bankSystem.saveData();
+                return null;
+            }, ignored -> {
+                JOptionPane.showMessageDialog(this, 
+                    "<html><div style='font-size:12pt;'>Account information updated successfully!</div></html>", 
+                    "Success", 
+                    JOptionPane.INFORMATION_MESSAGE);
+                showMainMenu();
+            }, submitButton, nameField, addressField, phoneField);
         }
     }
 
     public static void main(String[] args) {
+        long startNanos = System.nanoTime();
+        
         // Set system properties for better rendering
         System.setProperty("awt.useSystemAAFontSettings", "on");
         System.setProperty("swing.aatext", "true");
         System.setProperty("sun.java2d.opengl", "true");
         
+        // Data loading and font discovery run in the background from the first instant
+        long[] loadNanos = new long[1];
+        java.util.concurrent.CompletableFuture<BankSystem> bankFuture =
+            java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+                long loadStart = System.nanoTime();
+                BankSystem bankSystem = new BankSystem();
+                loadNanos[0] = System.nanoTime() - loadStart;
+                return bankSystem;
+            });
+        java.util.concurrent.CompletableFuture.runAsync(() ->
+            GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames());
+        
+        // -Dbank.edt.watchdog=false turns off EDT stall monitoring
+        if (!"false".equals(System.getProperty("bank.edt.watchdog"))) {
+            EdtWatchdog.install(Long.getLong("bank.edt.thresholdMillis", 100),
+                new File(System.getProperty("user.home"), "bank_edt.log"));
+        }
+        
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
@@ -1334,25 +1945,52 @@ public class ModernBankingApp extends JFrame {
         }
         
         SwingUtilities.invokeLater(() -> {
+            JWindow splash = null;
             try {
-                // Add splash screen effect
-                JWindow splash = createSplashScreen();
+                // Splash stays up only while real startup work is running
+                splash = createSplashScreen();
                 splash.setVisible(true);
-                
-                // Simulate loading time
-                javax.swing.Timer timer = new javax.swing.Timer(2500, e -> {
-                    splash.dispose();
-                    ModernBankingApp app = new ModernBankingApp();
-                    app.setVisible(true);
-                });
-                timer.setRepeats(false);
-                timer.start();
-                
+                // Painted now rather than when the EDT next drains its queue
+                JComponent content = (JComponent) splash.getContentPane();
+                content.paintImmediately(content.getBounds());
             } catch (Exception e) {
-                // If splash fails, show app directly
-                ModernBankingApp app = new ModernBankingApp();
-                app.setVisible(true);
+                // If splash fails, continue without it
             }
+            JWindow shownSplash = splash;
+            
+            // Panels are built in a later EDT task, so the splash is up first, while the
+            // data file is still being read
+            SwingUtilities.invokeLater(() -> {
+                long uiStart = System.nanoTime();
+                ModernBankingApp app = new ModernBankingApp();
+                long uiNanos = System.nanoTime() - uiStart;
+                
+                bankFuture
+                    // A failed load starts from an empty bank, built off the EDT like the first attempt
+                    .exceptionally(error -> {
+                        error.printStackTrace();
+                        return new BankSystem();
+                    })
+                    .whenComplete((bankSystem, error) -> SwingUtilities.invokeLater(() -> {
+                        if (error != null) {
+                            // Even the empty bank could not be set up; nothing to show
+                            error.printStackTrace();
+                            System.exit(1);
+                        }
+                        app.attachBankSystem(bankSystem);
+                        if (shownSplash != null) {
+                            shownSplash.dispose();
+                        }
+                        app.setVisible(true);
+                        
+                        // Logged once the EDT has processed the first show
+                        SwingUtilities.invokeLater(() -> System.out.printf(
+                            "Startup: data load %.0f ms, UI build %.0f ms, interactive after %.0f ms (JVM uptime %d ms)%n",
+                            loadNanos[0] / 1_000_000.0, uiNanos / 1_000_000.0,
+                            (System.nanoTime() - startNanos) / 1_000_000.0,
+                            java.lang.management.ManagementFactory.getRuntimeMXBean().getUptime()));
+                    }));
+            });
         });
     }
     
@@ -0,0 +1,63 @@
+import java.io.Serializable;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+class MonthlyAggregate implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final String month;
+    private double totalCredits;
+    private double totalDebits;
+    private int count;
+    private double minBalance = Double.NaN;
+    private double maxBalance = Double.NaN;
+
+    public MonthlyAggregate(String month) {
+        this.month = month;
+    }
+
+    // Transaction dates are "yyyy-MM-dd HH:mm:ss"
+    public static String monthOf(String date) {
+        return date.substring(0, 7);
+    }
+
+    public static String currentMonth() {
+        return new SimpleDateFormat("yyyy-MM").format(new Date());
+    }
+
+    public void record(Transaction transaction) {
+        if (transaction.getAmount() >= 0) {
+            totalCredits += transaction.getAmount();
+        } else {
+            totalDebits -= transaction.getAmount();
+        }
+        count++;
+        updateBalanceRange(transaction.getBalance(), transaction.getBalance());
+    }
+
+    public void merge(MonthlyAggregate other) {
+        totalCredits += other.totalCredits;
+        totalDebits += other.totalDebits;
+        count += other.count;
+        if (other.count > 0) {
+            updateBalanceRange(other.minBalance, other.maxBalance);
+        }
+    }
+
+    public MonthlyAggregate copy() {
+        MonthlyAggregate copy = new MonthlyAggregate(month);
+        copy.merge(this);
+        return copy;
+    }
+
+    private void updateBalanceRange(double min, double max) {
+        minBalance = Double.isNaN(minBalance) ? min : Math.min(minBalance, min);
+        maxBalance = Double.isNaN(maxBalance) ? max : Math.max(maxBalance, max);
+    }
+
+    public String getMonth() { return month; }
+    public double getTotalCredits() { return totalCredits; }
+    public double getTotalDebits() { return totalDebits; }
+    public int getCount() { return count; }
+    public double getMinBalance() { return minBalance; }
+    public double getMaxBalance() { return maxBalance; }
+}
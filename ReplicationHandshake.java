@@ -0,0 +1,106 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// Mutual challenge-response run on the raw socket before either side opens an object
+// stream, so nothing is deserialized from, or sent to, a peer that does not hold the
+// shared secret. Each side sends a fresh nonce and answers the other's with
+// HMAC-SHA256(secret, role, standby nonce, primary nonce); the secret never crosses the wire.
+//
+//   -Dbank.replication.secretFile=path   file holding the shared secret (required on both
+//                                        sides; at least 16 bytes)
+//
+// The standby also reads the primary's stream through RECORD_FILTER, so even an
+// authenticated peer can only make it build the classes replication ships.
+final class ReplicationHandshake {
+    private static final int MAGIC = 0x424b5250;
+    private static final int NONCE_BYTES = 32;
+    private static final int MIN_SECRET_BYTES = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    static final ObjectInputFilter RECORD_FILTER = ObjectInputFilter.Config.createFilter(
+            "ReplicationRecord;ReplicationRecord$Kind;BankAccount;Transaction;MonthlyAggregate;"
+                    + "java.lang.Object;java.lang.Enum;java.lang.Number;java.lang.Long;java.lang.Integer;java.lang.Double;"
+                    + "java.util.ArrayList;java.util.HashMap;java.util.LinkedHashMap;java.util.Map$Entry;"
+                    + "maxdepth=16;!*");
+
+    private ReplicationHandshake() {
+    }
+
+    static byte[] loadSecret() throws IOException {
+        String path = System.getProperty("bank.replication.secretFile");
+        if (path == null) {
+            throw new IOException("Replication needs -Dbank.replication.secretFile");
+        }
+        byte[] secret = new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8).trim()
+                .getBytes(StandardCharsets.UTF_8);
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IOException("Replication secret in " + path + " is shorter than " + MIN_SECRET_BYTES + " bytes");
+        }
+        return secret;
+    }
+
+    // Standby side: speaks first
+    static void authenticatePrimary(DataInputStream in, DataOutputStream out, byte[] secret) throws IOException {
+        byte[] standbyNonce = nonce();
+        out.writeInt(MAGIC);
+        out.write(standbyNonce);
+        out.flush();
+        byte[] primaryNonce = new byte[NONCE_BYTES];
+        in.readFully(primaryNonce);
+        byte[] proof = new byte[NONCE_BYTES];
+        in.readFully(proof);
+        if (!MessageDigest.isEqual(proof, sign(secret, "primary", standbyNonce, primaryNonce))) {
+            throw new IOException("Primary failed authentication");
+        }
+        out.write(sign(secret, "standby", standbyNonce, primaryNonce));
+        out.flush();
+    }
+
+    // Primary side
+    static void authenticateStandby(DataInputStream in, DataOutputStream out, byte[] secret) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replication standby");
+        }
+        byte[] standbyNonce = new byte[NONCE_BYTES];
+        in.readFully(standbyNonce);
+        byte[] primaryNonce = nonce();
+        out.write(primaryNonce);
+        out.write(sign(secret, "primary", standbyNonce, primaryNonce));
+        out.flush();
+        byte[] proof = new byte[NONCE_BYTES];
+        in.readFully(proof);
+        if (!MessageDigest.isEqual(proof, sign(secret, "standby", standbyNonce, primaryNonce))) {
+            throw new IOException("Standby failed authentication");
+        }
+    }
+
+    private static byte[] nonce() {
+        byte[] nonce = new byte[NONCE_BYTES];
+        RANDOM.nextBytes(nonce);
+        return nonce;
+    }
+
+    private static byte[] sign(byte[] secret, String role, byte[] standbyNonce, byte[] primaryNonce) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            mac.update(role.getBytes(StandardCharsets.UTF_8));
+            mac.update(standbyNonce);
+            mac.update(primaryNonce);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 is required of every JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
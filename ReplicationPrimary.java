@@ -0,0 +1,208 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Primary side of log-shipping replication. Every account change on the BankSystem's
+// change stream becomes a numbered ReplicationRecord in an in-memory ring, and each
+// connected standby is streamed the ring from where it left off. Shipping is
+// asynchronous: postings never wait for a standby.
+//
+//   -Dbank.replication.port=N          listen for standbys (ModernBankingApp starts it when set)
+//   -Dbank.replication.bind=host       listen address (default 127.0.0.1)
+//   -Dbank.replication.backlog=N       records kept for standbys that fall behind (default 65536)
+//   -Dbank.replication.heartbeatMillis=N  idle heartbeat interval (default 1000)
+//   -Dbank.replication.secretFile=path    shared secret standbys must prove (required, see
+//                                         ReplicationHandshake)
+//
+// A standby that is new, from another primary run or further behind than the ring is
+// first sent a base copy of every account, taken as an online snapshot (see
+// CopyOnWriteSnapshot), so it cannot start while a backup is running and vice versa.
+class ReplicationPrimary implements BankEventListener {
+    static final int RESET_INTERVAL = 1024;
+    private static final int BATCH_SIZE = 512;
+
+    private final BankSystem bankSystem;
+    // Identifies this run of the primary; sequences restart with every run
+    private final long epoch = new Random().nextLong();
+    private final int heartbeatMillis = Integer.getInteger("bank.replication.heartbeatMillis", 1000);
+    private final ReplicationRecord[] ring = new ReplicationRecord[Integer.getInteger("bank.replication.backlog", 65536)];
+    private long lastSequence;
+    private ServerSocket serverSocket;
+    private byte[] secret;
+
+    ReplicationPrimary(BankSystem bankSystem) {
+        this.bankSystem = bankSystem;
+    }
+
+    // Runs under the monitor of the account that changed, so each account's records are in order
+    @Override
+    public void onBankEvent(BankEvent event) {
+        switch (event.getType()) {
+            case TRANSACTION_APPENDED:
+                synchronized (this) {
+                    append(ReplicationRecord.posting(lastSequence + 1, event));
+                }
+                break;
+            case PROFILE_UPDATED:
+            case ACCOUNT_OPENED: {
+                BankAccount account = bankSystem.getAccount(event.getAccountNumber());
+                if (account == null) return;
+                synchronized (this) {
+                    append(event.getType() == BankEvent.Type.ACCOUNT_OPENED
+                            ? ReplicationRecord.open(lastSequence + 1, account)
+                            : ReplicationRecord.profile(lastSequence + 1, account));
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void append(ReplicationRecord record) {
+        lastSequence = record.sequence;
+        ring[(int) (record.sequence % ring.length)] = record;
+        notifyAll();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized void start(int port) throws IOException {
+        if (serverSocket != null) return;
+        secret = ReplicationHandshake.loadSecret();
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName(System.getProperty("bank.replication.bind", "127.0.0.1")));
+        bankSystem.subscribe(this);
+        ServerSocket listening = serverSocket;
+        Thread acceptor = new Thread(() -> {
+            while (!listening.isClosed()) {
+                try {
+                    Socket socket = listening.accept();
+                    Thread sender = new Thread(() -> serve(socket), "bank-replication-sender");
+                    sender.setDaemon(true);
+                    sender.start();
+                } catch (IOException e) {
+                    // Closed by stop()
+                }
+            }
+        }, "bank-replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public synchronized void stop() throws IOException {
+        if (serverSocket != null) {
+            bankSystem.unsubscribe(this);
+            serverSocket.close();
+            serverSocket = null;
+        }
+    }
+
+    private void serve(Socket socket) {
+        BankMetrics.get().count("replication.connect");
+        try (Socket connection = socket) {
+            connection.setTcpNoDelay(true);
+            // The standby only speaks before the log starts, so this just stops a silent peer holding the thread
+            connection.setSoTimeout(3 * heartbeatMillis);
+            // Nothing from the standby is deserialized: it only ever sends raw longs
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            BufferedOutputStream buffered = new BufferedOutputStream(connection.getOutputStream(), 64 * 1024);
+            try {
+                ReplicationHandshake.authenticateStandby(in, new DataOutputStream(buffered), secret);
+            } catch (IOException e) {
+                BankMetrics.get().recordFailure("replication.auth", "rejected");
+                return;
+            }
+            long standbyEpoch = in.readLong();
+            long applied = in.readLong();
+            ObjectOutputStream out = new ObjectOutputStream(buffered);
+
+            long next;
+            synchronized (this) {
+                boolean inRing = standbyEpoch == epoch && applied <= lastSequence && applied >= oldestSequence() - 1;
+                next = inRing ? applied + 1 : -1;
+            }
+            out.writeLong(epoch);
+            out.writeBoolean(next < 0);
+            if (next < 0) {
+                next = sendBase(out) + 1;
+            }
+            out.flush();
+
+            int sinceReset = 0;
+            List<ReplicationRecord> batch = new ArrayList<>(BATCH_SIZE);
+            while (!connection.isClosed()) {
+                synchronized (this) {
+                    if (next > lastSequence) {
+                        wait(heartbeatMillis);
+                    }
+                    if (next < oldestSequence()) {
+                        // Overwritten before it was sent; the standby reconnects and gets a new base
+                        BankMetrics.get().count("replication.overrun");
+                        return;
+                    }
+                    for (; next <= lastSequence && batch.size() < BATCH_SIZE; next++) {
+                        batch.add(ring[(int) (next % ring.length)]);
+                    }
+                    if (batch.isEmpty()) {
+                        batch.add(ReplicationRecord.heartbeat(lastSequence));
+                    }
+                }
+                for (ReplicationRecord record : batch) {
+                    out.writeObject(record);
+                    if (++sinceReset == RESET_INTERVAL) {
+                        out.reset();
+                        sinceReset = 0;
+                    }
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            BankMetrics.get().recordFailure("replication.ship", "io_error");
+        } catch (IllegalStateException e) {
+            // A backup holds the snapshot; the standby retries
+            BankMetrics.get().recordFailure("replication.base", "backup_running");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long oldestSequence() {
+        return Math.max(1, lastSequence - ring.length + 1);
+    }
+
+    // Streams every account as of one instant and returns the last sequence the copy
+    // is known to include. Records from just before the cut may be included too; the
+    // standby replays those without effect.
+    private long sendBase(ObjectOutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long covered = getLastSequence();
+        List<String> accountNumbers = bankSystem.beginSnapshot();
+        try {
+            out.writeLong(covered);
+            out.writeInt(accountNumbers.size());
+            int written = 0;
+            for (String accountNumber : accountNumbers) {
+                BankAccount account = bankSystem.snapshotAccount(accountNumber);
+                if (account == null) {
+                    throw new IOException("Account " + accountNumber + " could not be read");
+                }
+                out.writeObject(account);
+                if (++written % RESET_INTERVAL == 0) {
+                    out.reset();
+                }
+            }
+            out.reset();
+        } finally {
+            bankSystem.endSnapshot();
+        }
+        BankMetrics.get().record("replication.base", start);
+        return covered;
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.Serializable;
+
+// One entry of the replication log shipped from a primary to its standby. Every record
+// carries the full new state of what it changed, so replaying a record twice, or a
+// record already covered by a base copy, leaves the standby unchanged.
+class ReplicationRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    enum Kind { OPEN, POSTING, PROFILE, HEARTBEAT }
+
+    final Kind kind;
+    final long sequence;
+    final long createdMillis;
+    final String accountNumber;
+    // OPEN
+    BankAccount account;
+    // POSTING; the index counts archived transactions
+    long transactionIndex;
+    Transaction transaction;
+    double balance;
+    // PROFILE
+    String name;
+    String address;
+    String phone;
+    String passwordHash;
+    String lastEndOfDayDate;
+
+    private ReplicationRecord(Kind kind, long sequence, String accountNumber) {
+        this.kind = kind;
+        this.sequence = sequence;
+        this.createdMillis = System.currentTimeMillis();
+        this.accountNumber = accountNumber;
+    }
+
+    // The caller holds the account monitor. A just-opened account has nothing archived.
+    static ReplicationRecord open(long sequence, BankAccount account) {
+        ReplicationRecord record = new ReplicationRecord(Kind.OPEN, sequence, account.getAccountNumber());
+        record.account = account.pointInTimeCopy().materialize();
+        return record;
+    }
+
+    static ReplicationRecord posting(long sequence, BankEvent event) {
+        ReplicationRecord record = new ReplicationRecord(Kind.POSTING, sequence, event.getAccountNumber());
+        record.transactionIndex = event.getArchivedCount() + event.getTransactionIndex();
+        record.transaction = event.getTransaction();
+        record.balance = event.getBalance();
+        return record;
+    }
+
+    // The caller holds the account monitor
+    static ReplicationRecord profile(long sequence, BankAccount account) {
+        ReplicationRecord record = new ReplicationRecord(Kind.PROFILE, sequence, account.getAccountNumber());
+        record.name = account.getName();
+        record.address = account.getAddress();
+        record.phone = account.getPhone();
+        record.passwordHash = account.getPasswordHash();
+        record.lastEndOfDayDate = account.getLastEndOfDayDate();
+        return record;
+    }
+
+    // Sent when the log is idle; sequence is the primary's latest
+    static ReplicationRecord heartbeat(long sequence) {
+        return new ReplicationRecord(Kind.HEARTBEAT, sequence, null);
+    }
+}
@@ -0,0 +1,272 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Warm standby for a ReplicationPrimary. Applies the primary's log to its own BankSystem
+// (its own -Dbank.dataFile) as it arrives and saves every saveMillis, so promoting it
+// only needs a final save. Progress is kept in <dataFile>.replica; after a restart the
+// standby resumes from there, or takes a new base copy if the primary cannot.
+//
+//   -Dbank.replication.saveMillis=N       save interval while applying (default 1000)
+//   -Dbank.replication.failoverSeconds=N  promote after the primary is unreachable this
+//                                         long (default 0: never, promote() by hand)
+//   -Dbank.replication.secretFile=path    secret shared with the primary (required, see
+//                                         ReplicationHandshake)
+//
+// Lag is published as the gauges replication.lagRecords (records received but not yet
+// applied, or the primary's lead as of its last heartbeat) and replication.lagMillis
+// (age of the newest applied record, by the primary's clock, so meant for standbys on
+// the same host).
+class ReplicationStandby {
+    private final String host;
+    private final int port;
+    private final File stateFile = BankSystem.companionFile(".replica");
+    private final long saveMillis = Long.getLong("bank.replication.saveMillis", 1000);
+    private final long failoverMillis = Long.getLong("bank.replication.failoverSeconds", 0) * 1000;
+    private final int timeoutMillis = 3 * Integer.getInteger("bank.replication.heartbeatMillis", 1000);
+    private final byte[] secret;
+
+    private BankSystem bankSystem;
+    private long epoch;
+    private long applied;
+    private long savedSequence;
+    private long lastSaveMillis;
+    private volatile boolean promoted;
+    private volatile Socket socket;
+
+    ReplicationStandby(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.secret = ReplicationHandshake.loadSecret();
+        loadState();
+        this.savedSequence = applied;
+        this.bankSystem = new BankSystem();
+    }
+
+    public BankSystem getBankSystem() {
+        return bankSystem;
+    }
+
+    public long getAppliedSequence() {
+        return applied;
+    }
+
+    // Follows the primary until promoted, reconnecting whenever the connection drops.
+    // Failover only counts from the first contact, so the standby may start first.
+    public BankSystem run() {
+        long lastContact = 0;
+        while (!promoted) {
+            try {
+                follow();
+            } catch (SocketTimeoutException e) {
+                BankMetrics.get().recordFailure("replication.apply", "primary_silent");
+            } catch (IOException | ClassNotFoundException e) {
+                BankMetrics.get().recordFailure("replication.apply", "io_error");
+            } catch (IllegalStateException e) {
+                // A gap in an account's history: start over from a base copy
+                BankMetrics.get().recordFailure("replication.apply", "gap");
+                epoch = 0;
+            }
+            if (socket != null) lastContact = System.currentTimeMillis();
+            socket = null;
+            if (failoverMillis > 0 && lastContact > 0 && System.currentTimeMillis() - lastContact >= failoverMillis) {
+                promote();
+                break;
+            }
+            sleep(Math.min(1000, timeoutMillis));
+        }
+        return bankSystem;
+    }
+
+    // Stops following and makes everything applied so far durable; the data file is
+    // then ready for the application to start on
+    public synchronized BankSystem promote() {
+        if (promoted) return bankSystem;
+        promoted = true;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+        checkpoint();
+        BankMetrics.get().count("replication.promoted");
+        return bankSystem;
+    }
+
+    private void follow() throws IOException, ClassNotFoundException {
+        try (Socket connection = new Socket()) {
+            connection.connect(new InetSocketAddress(host, port), timeoutMillis);
+            connection.setSoTimeout(timeoutMillis);
+            connection.setTcpNoDelay(true);
+            socket = connection;
+            BufferedInputStream input = new BufferedInputStream(connection.getInputStream(), 64 * 1024);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            ReplicationHandshake.authenticatePrimary(new DataInputStream(input), out, secret);
+            out.writeLong(epoch);
+            out.writeLong(applied);
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(input);
+            in.setObjectInputFilter(ReplicationHandshake.RECORD_FILTER);
+            long primaryEpoch = in.readLong();
+            long baseStart = System.nanoTime();
+            Map<String, BankAccount> base = null;
+            long covered = 0;
+            if (in.readBoolean()) {
+                covered = in.readLong();
+                int count = in.readInt();
+                base = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    BankAccount account = (BankAccount) in.readObject();
+                    base.put(account.getAccountNumber(), account);
+                }
+            } else if (primaryEpoch != epoch) {
+                throw new IOException("Primary resumed a log it does not have");
+            }
+
+            // Records are received on their own thread, so a slow base install or save never
+            // holds up the primary long enough for its ring to overwrite what is unsent
+            BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+            Thread receiver = new Thread(() -> {
+                try {
+                    while (true) {
+                        received.put(in.readObject());
+                    }
+                } catch (IOException | ClassNotFoundException e) {
+                    received.offer(e);
+                } catch (InterruptedException e) {
+                    // Connection is being closed
+                }
+            }, "bank-replication-receiver");
+            receiver.setDaemon(true);
+            receiver.start();
+
+            if (base != null) {
+                installBase(base, primaryEpoch, covered);
+                BankMetrics.get().record("replication.base", baseStart);
+            }
+            while (!promoted) {
+                Object next;
+                try {
+                    next = received.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (next instanceof IOException) throw (IOException) next;
+                if (next instanceof ClassNotFoundException) throw (ClassNotFoundException) next;
+                ReplicationRecord record = (ReplicationRecord) next;
+                synchronized (this) {
+                    if (promoted) return;
+                    apply(record, received.size());
+                    if (applied != savedSequence && System.currentTimeMillis() - lastSaveMillis >= saveMillis) {
+                        checkpoint();
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized void installBase(Map<String, BankAccount> accounts, long primaryEpoch, long covered)
+            throws IOException {
+        if (promoted) return;
+        BankSystem.installSnapshot(accounts);
+        bankSystem = new BankSystem();
+        epoch = primaryEpoch;
+        applied = covered;
+        if (saveState()) {
+            savedSequence = covered;
+        }
+    }
+
+    private void apply(ReplicationRecord record, int queued) {
+        long start = System.nanoTime();
+        switch (record.kind) {
+            case OPEN:
+                if (!bankSystem.accountExists(record.accountNumber)) {
+                    bankSystem.addAccount(record.account);
+                }
+                break;
+            case POSTING: {
+                // Unknown accounts are opened by a later OPEN record that already holds this posting
+                BankAccount account = bankSystem.getAccount(record.accountNumber);
+                if (account != null) {
+                    bankSystem.runLocked(account, () ->
+                            account.applyReplicatedPosting(record.transactionIndex, record.transaction, record.balance));
+                }
+                break;
+            }
+            case PROFILE: {
+                BankAccount account = bankSystem.getAccount(record.accountNumber);
+                if (account != null) {
+                    bankSystem.runLocked(account, () -> account.applyReplicatedProfile(record.name, record.address,
+                            record.phone, record.passwordHash, record.lastEndOfDayDate));
+                }
+                break;
+            }
+            case HEARTBEAT:
+                BankMetrics.get().gauge("replication.lagRecords", Math.max(0, record.sequence - applied));
+                if (record.sequence <= applied) {
+                    BankMetrics.get().gauge("replication.lagMillis", 0);
+                }
+                return;
+        }
+        applied = record.sequence;
+        BankMetrics.get().gauge("replication.lagRecords", queued);
+        BankMetrics.get().gauge("replication.lagMillis", Math.max(0, System.currentTimeMillis() - record.createdMillis));
+        BankMetrics.get().record("replication.apply", start);
+    }
+
+    // Data first, then the position: a crash in between replays records already applied
+    private void checkpoint() {
+        bankSystem.saveData();
+        // A position that failed to save is retried on the next checkpoint
+        if (saveState()) {
+            savedSequence = applied;
+        }
+        lastSaveMillis = System.currentTimeMillis();
+    }
+
+    private void loadState() {
+        if (!stateFile.exists()) return;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(stateFile))) {
+            epoch = in.readLong();
+            applied = in.readLong();
+        } catch (IOException e) {
+            BankMetrics.get().recordFailure("replication.state", "io_error");
+            epoch = 0;
+            applied = 0;
+        }
+    }
+
+    // Returns whether the position is now on disk; the previous one stays there otherwise
+    private boolean saveState() {
+        File tempFile = new File(stateFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile))) {
+                out.writeLong(epoch);
+                out.writeLong(applied);
+            }
+            BankSystem.replace(tempFile, stateFile);
+            return true;
+        } catch (IOException e) {
+            BankMetrics.get().recordFailure("replication.state", "io_error");
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
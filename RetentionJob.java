@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.List;
+
+// Moves transactions older than the retention period out of the live history into the
+// TransactionArchive, leaving each account with its recent history, its latest
+// transaction and an opening balance carried forward from the archived part.
+//
+//   -Dbank.retention.days=N             history kept live (default 365)
+//   -Dbank.retention.minTransactions=N  smallest run worth a segment (default 256), so
+//                                       daily runs do not leave a segment per day
+//
+// Each account's segment is written before its live history is cut, and the data file
+// is saved once at the end; after a crash in between, the next run archives the same
+// transactions again.
+class RetentionJob {
+
+    public static class Report {
+        private final String cutoffDate;
+        private final int accounts;
+        private final int archivedAccounts;
+        private final long archivedTransactions;
+        private final long segmentBytes;
+        private final int failed;
+        private final long nanos;
+
+        Report(String cutoffDate, int accounts, int archivedAccounts, long archivedTransactions,
+               long segmentBytes, int failed, long nanos) {
+            this.cutoffDate = cutoffDate;
+            this.accounts = accounts;
+            this.archivedAccounts = archivedAccounts;
+            this.archivedTransactions = archivedTransactions;
+            this.segmentBytes = segmentBytes;
+            this.failed = failed;
+            this.nanos = nanos;
+        }
+
+        public int getArchivedAccounts() { return archivedAccounts; }
+        public long getArchivedTransactions() { return archivedTransactions; }
+        public int getFailed() { return failed; }
+
+        @Override
+        public String toString() {
+            return String.format("Retention before %s: %,d of %,d accounts archived, %,d transactions moved into " +
+                    "%,d KB of segments, %,d failed, in %.1f ms", cutoffDate, archivedAccounts, accounts,
+                    archivedTransactions, segmentBytes / 1024, failed, nanos / 1_000_000.0);
+        }
+    }
+
+    private final BankSystem bankSystem;
+    private final int minTransactions = Integer.getInteger("bank.retention.minTransactions", 256);
+
+    public RetentionJob(BankSystem bankSystem) {
+        this.bankSystem = bankSystem;
+    }
+
+    public static String cutoffDate(int retentionDays) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, -retentionDays);
+        return new SimpleDateFormat("yyyy-MM-dd").format(calendar.getTime());
+    }
+
+    public Report run() {
+        return run(cutoffDate(Integer.getInteger("bank.retention.days", 365)));
+    }
+
+    // Archives transactions dated before cutoffDate ("yyyy-MM-dd")
+    public Report run(String cutoffDate) {
+        long start = System.nanoTime();
+        TransactionArchive archive = bankSystem.getArchive();
+        List<String> accountNumbers = bankSystem.getAccountNumbers();
+        int archivedAccounts = 0;
+        long archivedTransactions = 0;
+        long segmentBytes = 0;
+        int failed = 0;
+        for (String accountNumber : accountNumbers) {
+            BankAccount account = bankSystem.getAccount(accountNumber);
+            if (account == null) continue;
+            long archivedCount;
+            double openingBalance;
+            List<Transaction> prefix;
+            synchronized (account) {
+                archivedCount = account.getArchivedCount();
+                openingBalance = account.getOpeningBalance();
+                prefix = account.archivablePrefix(cutoffDate);
+            }
+            if (prefix.size() < minTransactions) continue;
+            try {
+                segmentBytes += archive.writeSegment(accountNumber, archivedCount, openingBalance, prefix);
+            } catch (IOException e) {
+                BankMetrics.get().recordFailure("retention", "io_error");
+                failed++;
+                continue;
+            }
+            boolean[] dropped = new boolean[1];
+            bankSystem.runLocked(account, () -> dropped[0] = account.dropArchived(archivedCount, prefix));
+            if (dropped[0]) {
+                archivedAccounts++;
+                archivedTransactions += prefix.size();
+            }
+        }
+        if (archivedAccounts > 0) {
+            bankSystem.saveData();
+        }
+        BankMetrics.get().record("retention", start);
+        return new Report(cutoffDate, accountNumbers.size(), archivedAccounts, archivedTransactions,
+                segmentBytes, failed, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.*;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// Streaming compression for everything persisted as Java serialization: the data file,
+// cold account files, backups and transaction archives. Serialization output repeats
+// class descriptors, field names and descriptions like "Deposit" on every record, so
+// even the fastest level shrinks it several times over.
+//
+//   -Dbank.compression=none|deflate|gzip   codec for new files (default deflate)
+//   -Dbank.compression.level=0..9          1 is fastest, 9 smallest (default 1)
+//
+// Readers detect the codec from the first bytes of the stream, so files written with
+// any setting, or before compression existed, still load.
+class SnapshotCodec {
+    enum Codec { NONE, DEFLATE, GZIP }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Codec CODEC = codecProperty();
+    private static final int LEVEL = levelProperty();
+
+    // A bad setting falls back rather than failing class initialisation, which would
+    // take every save and load down with it
+    private static Codec codecProperty() {
+        String value = System.getProperty("bank.compression", "deflate");
+        try {
+            return Codec.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring -Dbank.compression=" + value + " (expected none, deflate or gzip); writing uncompressed");
+            return Codec.NONE;
+        }
+    }
+
+    private static int levelProperty() {
+        int level = Integer.getInteger("bank.compression.level", 1);
+        if (level < 0 || level > 9) {
+            System.err.println("Ignoring -Dbank.compression.level=" + level + " (expected 0..9); using 1");
+            return 1;
+        }
+        return level;
+    }
+
+    static Codec codec() {
+        return CODEC;
+    }
+
+    static String describe() {
+        return CODEC == Codec.NONE ? "none" : CODEC.name().toLowerCase() + "-" + LEVEL;
+    }
+
+    // Buffered; closing the returned stream finishes the compressed data and closes out
+    static OutputStream compress(OutputStream out) throws IOException {
+        return compress(out, CODEC);
+    }
+
+    static OutputStream compress(OutputStream out, Codec codec) throws IOException {
+        return new BufferedOutputStream(compressor(out, codec), BUFFER_SIZE);
+    }
+
+    private static OutputStream compressor(OutputStream out, Codec codec) throws IOException {
+        switch (codec) {
+            case DEFLATE:
+                return new DeflaterOutputStream(out, new Deflater(LEVEL), BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            def.end();
+                        }
+                    }
+                };
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE) {
+                    {
+                        def.setLevel(LEVEL);
+                    }
+                };
+            default:
+                return out;
+        }
+    }
+
+    // Zlib streams start with a header whose first two bytes are a multiple of 31, gzip
+    // with 1f 8b, and Java serialization with ac ed
+    static InputStream decompress(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new BufferedInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        if (first >= 0 && second >= 0 && (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0) {
+            return new BufferedInputStream(new InflaterInputStream(buffered, new Inflater(), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
+                }
+            }, BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    // Counts the uncompressed bytes passing through, for the compression ratio
+    static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() { return count; }
+    }
+
+    static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() { return count; }
+    }
+}
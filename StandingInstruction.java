@@ -0,0 +1,87 @@
+import java.io.Serializable;
+import java.util.Calendar;
+
+// Recurring transfer registered by a customer (rent, SIP, EMI). Run n is due at the
+// first run date plus n periods, so monthly runs keep their day of month (31st falls
+// back to the 30th or 28th in shorter months and returns to the 31st after).
+class StandingInstruction implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    private final long id;
+    private final String fromAccount;
+    private final String toAccount;
+    private final double amount;
+    private final Frequency frequency;
+    private final long firstRunMillis;
+    // 0 runs until cancelled
+    private final int totalRuns;
+    private int completedRuns;
+    private int failedRuns;
+    private int runsDone;
+
+    StandingInstruction(long id, String fromAccount, String toAccount, double amount,
+                        Frequency frequency, long firstRunMillis, int totalRuns) {
+        this.id = id;
+        this.fromAccount = fromAccount;
+        this.toAccount = toAccount;
+        this.amount = amount;
+        this.frequency = frequency;
+        this.firstRunMillis = firstRunMillis;
+        this.totalRuns = totalRuns;
+    }
+
+    public long getId() { return id; }
+    public String getFromAccount() { return fromAccount; }
+    public String getToAccount() { return toAccount; }
+    public double getAmount() { return amount; }
+    public Frequency getFrequency() { return frequency; }
+    public int getCompletedRuns() { return completedRuns; }
+    public int getFailedRuns() { return failedRuns; }
+
+    public boolean isFinished() {
+        return totalRuns > 0 && runsDone >= totalRuns;
+    }
+
+    public long nextRunMillis() {
+        return runMillis(runsDone);
+    }
+
+    long followingRunMillis() {
+        return runMillis(runsDone + 1);
+    }
+
+    // Identifies one run, so a run is never posted twice after a crash or catch-up
+    String runReference() {
+        return fromAccount + '>' + toAccount + "@SI" + id + '-' + runsDone;
+    }
+
+    void recordRun(boolean succeeded) {
+        if (succeeded) completedRuns++; else failedRuns++;
+        runsDone++;
+    }
+
+    // Passes over a missed run without posting it
+    void skipRun() {
+        runsDone++;
+    }
+
+    private long runMillis(int run) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(firstRunMillis);
+        switch (frequency) {
+            case DAILY: calendar.add(Calendar.DAY_OF_MONTH, run); break;
+            case WEEKLY: calendar.add(Calendar.DAY_OF_MONTH, 7 * run); break;
+            case MONTHLY: calendar.add(Calendar.MONTH, run); break;
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SI #%d: Rs.%,.2f %s to %s, next %tF, %d done, %d failed%s",
+                id, amount, frequency, toAccount, nextRunMillis(), completedRuns, failedRuns,
+                totalRuns > 0 ? " of " + totalRuns : "");
+    }
+}
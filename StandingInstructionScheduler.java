@@ -0,0 +1,255 @@
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Runs standing instructions through BankSystem.transfer. Pending runs sit in a
+// hierarchical timing wheel, so registering and firing are O(1) however many are
+// pending. Due runs are posted in batches, with one data file save per batch.
+// Instructions are kept in <dataFile>.standing. Runs missed while the app was down
+// are caught up on the first tick after start.
+//
+//   -Dbank.standing.tickMillis=N   wheel resolution and polling interval (default 1000)
+//   -Dbank.standing.batchSize=N    runs posted per save (default 256)
+//   -Dbank.standing.catchUp=latest post only the most recent missed run (default: all)
+//
+// Every run carries its own transfer reference. If a run's reference is already in
+// the sender's history, for example after a crash between the data save and the
+// schedule save, the run is skipped instead of paid twice.
+class StandingInstructionScheduler {
+
+    public static class Report {
+        private final int executed;
+        private final int failed;
+        private final int skipped;
+        private final int batches;
+        private final long nanos;
+
+        Report(int executed, int failed, int skipped, int batches, long nanos) {
+            this.executed = executed;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.batches = batches;
+            this.nanos = nanos;
+        }
+
+        public int getExecuted() { return executed; }
+        public int getFailed() { return failed; }
+
+        @Override
+        public String toString() {
+            return String.format("Standing instructions: %,d runs posted, %,d failed, %,d already posted, " +
+                    "%,d batches in %.1f ms", executed, failed, skipped, batches, nanos / 1_000_000.0);
+        }
+    }
+
+    private final BankSystem bankSystem;
+    private final File file;
+    private final long tickMillis = Long.getLong("bank.standing.tickMillis", 1000);
+    private final int batchSize = Integer.getInteger("bank.standing.batchSize", 256);
+    private final boolean catchUpAll = !"latest".equals(System.getProperty("bank.standing.catchUp"));
+
+    private final Map<Long, StandingInstruction> instructions = new HashMap<>();
+    private final Map<Long, TimingWheel.Timer<StandingInstruction>> timers = new HashMap<>();
+    private final TimingWheel<StandingInstruction> wheel;
+    private long lastId;
+    private ScheduledExecutorService ticker;
+
+    StandingInstructionScheduler(BankSystem bankSystem) {
+        this.bankSystem = bankSystem;
+        this.file = BankSystem.companionFile(".standing");
+        this.wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        load();
+    }
+
+    public synchronized StandingInstruction add(String fromAccount, String toAccount, double amount,
+                                                StandingInstruction.Frequency frequency, long firstRunMillis, int totalRuns) {
+        if (amount <= 0 || fromAccount.equals(toAccount)
+                || !bankSystem.accountExists(fromAccount) || !bankSystem.accountExists(toAccount)) {
+            return null;
+        }
+        StandingInstruction instruction = new StandingInstruction(++lastId, fromAccount, toAccount, amount,
+                frequency, firstRunMillis, totalRuns);
+        instructions.put(instruction.getId(), instruction);
+        timers.put(instruction.getId(), wheel.schedule(instruction, instruction.nextRunMillis()));
+        save();
+        return instruction;
+    }
+
+    // Only the paying account can cancel its own instruction
+    public synchronized boolean cancel(String fromAccount, long id) {
+        StandingInstruction instruction = instructions.get(id);
+        if (instruction == null || !instruction.getFromAccount().equals(fromAccount)) return false;
+        instructions.remove(id);
+        TimingWheel.Timer<StandingInstruction> timer = timers.remove(id);
+        if (timer != null) wheel.cancel(timer);
+        save();
+        return true;
+    }
+
+    public synchronized List<StandingInstruction> list(String fromAccount) {
+        List<StandingInstruction> result = new ArrayList<>();
+        for (StandingInstruction instruction : instructions.values()) {
+            if (instruction.getFromAccount().equals(fromAccount)) result.add(instruction);
+        }
+        result.sort(Comparator.comparingLong(StandingInstruction::getId));
+        return result;
+    }
+
+    public synchronized int pending() {
+        return wheel.size();
+    }
+
+    public synchronized void start() {
+        if (ticker != null) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bank-standing-instructions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                runDue(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdown();
+            ticker = null;
+        }
+    }
+
+    // Posts every run due at or before nowMillis, including runs missed while stopped
+    public Report runDue(long nowMillis) {
+        long start = System.nanoTime();
+        List<StandingInstruction> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(nowMillis, due::add);
+            for (StandingInstruction instruction : due) {
+                timers.remove(instruction.getId());
+            }
+        }
+        int executed = 0;
+        int failed = 0;
+        int skipped = 0;
+        int batches = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<StandingInstruction> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            for (StandingInstruction instruction : batch) {
+                // Instruction state is read and changed under this monitor, which save() also
+                // holds; only the transfer itself runs outside it
+                synchronized (this) {
+                    if (!instructions.containsKey(instruction.getId())) continue; // cancelled meanwhile
+                    if (!catchUpAll) {
+                        while (!instruction.isFinished() && instruction.followingRunMillis() <= nowMillis) {
+                            instruction.skipRun();
+                            BankMetrics.get().recordFailure("standing.run", "missed");
+                        }
+                    }
+                }
+                // Catch-up posts one run per missed period
+                while (true) {
+                    long runStart = System.nanoTime();
+                    String reference;
+                    long dueMillis;
+                    synchronized (this) {
+                        if (instruction.isFinished() || instruction.nextRunMillis() > nowMillis) break;
+                        reference = instruction.runReference();
+                        dueMillis = instruction.nextRunMillis();
+                    }
+                    if (alreadyPosted(instruction, reference, dueMillis)) {
+                        synchronized (this) {
+                            instruction.recordRun(true);
+                        }
+                        skipped++;
+                        continue;
+                    }
+                    BankAccount.WithdrawalResult result = bankSystem.transfer(instruction.getFromAccount(),
+                            instruction.getToAccount(), instruction.getAmount(), reference);
+                    boolean succeeded = result == BankAccount.WithdrawalResult.COMPLETED;
+                    synchronized (this) {
+                        instruction.recordRun(succeeded);
+                    }
+                    if (succeeded) {
+                        executed++;
+                    } else {
+                        failed++;
+                        BankMetrics.get().recordFailure("standing.run", result.name().toLowerCase());
+                    }
+                    BankMetrics.get().record("standing.run", runStart);
+                }
+                synchronized (this) {
+                    if (instruction.isFinished()) {
+                        instructions.remove(instruction.getId());
+                    } else if (instructions.containsKey(instruction.getId())) {
+                        timers.put(instruction.getId(), wheel.schedule(instruction, instruction.nextRunMillis()));
+                    }
+                }
+            }
+            // Postings first, then the schedule: a crash in between is caught by alreadyPosted().
+            // saveData() serializes with saves from other threads.
+            bankSystem.saveData();
+            synchronized (this) {
+                save();
+            }
+            batches++;
+        }
+        return new Report(executed, failed, skipped, batches, System.nanoTime() - start);
+    }
+
+    // Runs are posted at or after their due time, so only the tail of the history is
+    // searched. Only transfer legs end the search: back-valued end-of-day entries can
+    // carry an earlier date than postings before them.
+    private boolean alreadyPosted(StandingInstruction instruction, String reference, long dueMillis) {
+        BankAccount sender = bankSystem.getAccount(instruction.getFromAccount());
+        if (sender == null) return false;
+        String dueDate = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(dueMillis));
+        synchronized (sender) {
+            List<Transaction> transactions = sender.getTransactions();
+            for (int i = transactions.size() - 1; i >= 0; i--) {
+                Transaction transaction = transactions.get(i);
+                if (reference.equals(transaction.getReference())) return true;
+                if (transaction.getReference() != null && transaction.getDate().compareTo(dueDate) < 0) return false;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (!file.exists()) return;
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            // Ids are never reused, even once the instruction holding the highest one has finished
+            lastId = ois.readLong();
+            for (StandingInstruction instruction : (List<StandingInstruction>) ois.readObject()) {
+                lastId = Math.max(lastId, instruction.getId());
+                if (instruction.isFinished()) continue;
+                instructions.put(instruction.getId(), instruction);
+                // Past-due runs land on the current tick and are caught up on the first advance
+                timers.put(instruction.getId(), wheel.schedule(instruction, instruction.nextRunMillis()));
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            BankMetrics.get().recordFailure("standing.load", "io_error");
+            e.printStackTrace();
+        }
+    }
+
+    private void save() {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                oos.writeLong(lastId);
+                oos.writeObject(new ArrayList<>(instructions.values()));
+            }
+            BankSystem.replace(tempFile, file);
+        } catch (IOException e) {
+            BankMetrics.get().recordFailure("standing.save", "io_error");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.*;
+
+// Renders an account statement as PDF. Kept apart from the Swing code so the
+// batch tools and benchmarks can produce statements without a UI.
+class StatementPdfWriter {
+    private static final int FLUSH_ROWS = 500;
+
+    public static void write(BankAccount account, OutputStream out) throws DocumentException, IOException {
+        long start = System.nanoTime();
+        BankJfrEvents.Statement event = BankJfrEvents.statement();
+        CountingOutputStream counted = event != null ? new CountingOutputStream(out) : null;
+        // Use a font that supports rupee symbol
+        BaseFont baseFont = BaseFont.createFont(
+            BaseFont.HELVETICA, 
+            BaseFont.CP1252, 
+            BaseFont.EMBEDDED
+        );
+        
+        Document document = new Document();
+        PdfWriter.getInstance(document, counted != null ? counted : out);
+        document.open();
+        
+        Font titleFont = new Font(baseFont, 18, Font.BOLD, BaseColor.BLUE);
+        Paragraph title = new Paragraph("Bank Statement", titleFont);
+        title.setAlignment(Element.ALIGN_CENTER);
+        title.setSpacingAfter(20);
+        document.add(title);
+        
+        Font infoFont = new Font(baseFont, 12);
+        document.add(new Paragraph("Account Holder: " + account.getName(), infoFont));
+        document.add(new Paragraph("Account Number: " + account.getAccountNumber(), infoFont));
+        document.add(new Paragraph("Statement Date: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()), infoFont));
+        document.add(new Paragraph(" "));
+        
+        // Rows are flushed to the document as they are added, so neither the history nor
+        // the table is ever held whole; the header repeats on every page
+        PdfPTable table = new PdfPTable(4);
+        table.setComplete(false);
+        table.setHeaderRows(1);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(10);
+        table.setSpacingAfter(10);
+        
+        Font headerFont = new Font(baseFont, 12, Font.BOLD);
+        table.addCell(new Phrase("Date", headerFont));
+        table.addCell(new Phrase("Description", headerFont));
+        table.addCell(new Phrase("Amount", headerFont));
+        table.addCell(new Phrase("Balance", headerFont));
+        
+        Font dataFont = new Font(baseFont, 12);
+        long rows = account.forEachInStatement(null, null, new TransactionSink<DocumentException>() {
+            private int pending;
+
+            @Override
+            public void accept(Transaction t) throws DocumentException {
+                table.addCell(new Phrase(t.getDate(), dataFont));
+                table.addCell(new Phrase(t.getDescription(), dataFont));
+                table.addCell(new Phrase(formatCurrency(t.getAmount()), dataFont));
+                table.addCell(new Phrase(formatCurrency(t.getBalance()), dataFont));
+                if (++pending == FLUSH_ROWS) {
+                    document.add(table);
+                    pending = 0;
+                }
+            }
+        });
+        table.setComplete(true);
+        document.add(table);
+        
+        Font balanceFont = new Font(baseFont, 14, Font.BOLD);
+        Paragraph balance = new Paragraph("Current Balance: " + 
+            formatCurrency(account.getBalance()), balanceFont);
+        balance.setAlignment(Element.ALIGN_RIGHT);
+        document.add(balance);
+        
+        document.close();
+        BankMetrics.get().record("statement", start);
+        
+        if (counted != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.format = "pdf";
+                event.accountNumber = account.getAccountNumber();
+                event.rows = rows;
+                event.bytes = counted.count;
+                event.commit();
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static String formatCurrency(double amount) {
+        return "Rs." + String.format("%,.2f", amount);
+    }
+}
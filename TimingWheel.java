@@ -0,0 +1,122 @@
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel (Varghese & Lauck). Six levels of 64 slots; level L holds
+// entries whose tick first differs from the current tick in base-64 digit L, and a
+// level's slot is cascaded one level down when the current tick reaches it. Scheduling
+// and cancelling are O(1); advancing costs O(1) per tick plus the entries that move.
+// Not thread-safe; callers synchronize.
+class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 6;
+
+    static final class Timer<T> {
+        final T item;
+        long tick;
+        Timer<T> prev;
+        Timer<T> next;
+        int level = -1;
+        int slot;
+
+        Timer(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }
+
+        public T getItem() { return item; }
+    }
+
+    private final long tickMillis;
+    @SuppressWarnings("unchecked")
+    private final Timer<T>[][] wheels = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+    // Every tick before this one has been processed
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Deadlines at or before the current tick fire on the next advance
+    public Timer<T> schedule(T item, long deadlineMillis) {
+        Timer<T> timer = new Timer<>(item, Math.max(currentTick, deadlineMillis / tickMillis));
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    public void cancel(Timer<T> timer) {
+        if (timer.level >= 0) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Fires every entry due at or before nowMillis, in tick order
+    public void advanceTo(long nowMillis, Consumer<T> due) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick <= targetTick) {
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (BITS * level)) & (SLOTS - 1)));
+                }
+            }
+            int slot = (int) (currentTick & (SLOTS - 1));
+            // Callbacks may schedule more work for this same tick, so drain until empty
+            Timer<T> head;
+            while ((head = wheels[0][slot]) != null) {
+                wheels[0][slot] = null;
+                for (Timer<T> timer = head; timer != null; ) {
+                    Timer<T> next = timer.next;
+                    timer.prev = timer.next = null;
+                    timer.level = -1;
+                    size--;
+                    due.accept(timer.item);
+                    timer = next;
+                }
+            }
+            currentTick++;
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Timer<T> timer = wheels[level][slot];
+        wheels[level][slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = timer.next = null;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        if (timer.tick < currentTick) timer.tick = currentTick;
+        long differing = timer.tick ^ currentTick;
+        int level = differing == 0 ? 0 : (63 - Long.numberOfLeadingZeros(differing)) / BITS;
+        if (level >= LEVELS) level = LEVELS - 1; // beyond the wheel's range; re-placed on cascade
+        int slot = (int) ((timer.tick >>> (BITS * level)) & (SLOTS - 1));
+        timer.level = level;
+        timer.slot = slot;
+        Timer<T> head = wheels[level][slot];
+        timer.next = head;
+        if (head != null) head.prev = timer;
+        wheels[level][slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            wheels[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) timer.next.prev = timer.prev;
+        timer.prev = timer.next = null;
+        timer.level = -1;
+    }
+}
@@ -0,0 +1,47 @@
+import java.io.Serializable;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+class Transaction implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private String date;
+    private String description;
+    private double amount;
+    private double balance;
+    // Shared by the two legs of a transfer; null for every other posting and in old data files
+    private String reference;
+
+    public Transaction(String description, double amount, double balance) {
+        this(description, amount, balance, null);
+    }
+
+    public Transaction(String description, double amount, double balance, String reference) {
+        this(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()), description, amount, balance, reference);
+    }
+
+    // Back-valued posting, e.g. end-of-day entries for a past business date
+    Transaction(String date, String description, double amount, double balance, String reference) {
+        this.date = date;
+        this.description = description;
+        this.amount = amount;
+        this.balance = balance;
+        this.reference = reference;
+    }
+
+    public String getDate() { return date; }
+    public String getDescription() { return description; }
+    public double getAmount() { return amount; }
+    public double getBalance() { return balance; }
+    public String getReference() { return reference; }
+
+    // Inclusive "yyyy-MM-dd" bounds, either of which may be null
+    boolean isDatedWithin(String fromDate, String toDate) {
+        return (fromDate == null || date.compareTo(fromDate) >= 0)
+                && (toDate == null || date.substring(0, 10).compareTo(toDate) <= 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s %-15s Rs.%,12.2f Rs.%,12.2f", date, description, amount, balance);
+    }
+}
@@ -0,0 +1,141 @@
+import java.io.*;
+import java.util.*;
+
+// Archived history, kept out of the live heap. Each account has a directory of
+// immutable segments, each holding a run of its oldest transactions compressed with
+// SnapshotCodec. A segment is named after its position in the account's full history,
+// its size and its date range, so statements only open the segments they cover:
+//
+//   <dir>/<account>/<first index>-<count>-<first yyyyMMdd>-<last yyyyMMdd>.seg
+//
+// An account references the segments covering positions [0, archivedCount). A segment
+// left behind by a crash before the account was saved is not referenced, and is
+// replaced when the account is archived again.
+class TransactionArchive {
+    private static final String SUFFIX = ".seg";
+
+    private final File dir;
+
+    TransactionArchive(File dir) {
+        this.dir = dir;
+    }
+
+    // Returns the segment's size on disk
+    long writeSegment(String accountNumber, long firstIndex, double openingBalance, List<Transaction> transactions)
+            throws IOException {
+        File accountDir = new File(dir, accountNumber);
+        if (!accountDir.isDirectory() && !accountDir.mkdirs()) {
+            throw new IOException("Cannot create " + accountDir);
+        }
+        String prefix = String.format("%012d-", firstIndex);
+        File[] stale = accountDir.listFiles((d, name) -> name.startsWith(prefix));
+        if (stale != null) {
+            for (File file : stale) file.delete();
+        }
+        // Back-valued end-of-day entries can sit out of date order, so the range is min to max
+        String firstDay = day(transactions.get(0));
+        String lastDay = firstDay;
+        for (Transaction transaction : transactions) {
+            String day = day(transaction);
+            if (day.compareTo(firstDay) < 0) firstDay = day;
+            if (day.compareTo(lastDay) > 0) lastDay = day;
+        }
+        File target = new File(accountDir, prefix + transactions.size() + '-' + firstDay + '-' + lastDay + SUFFIX);
+        File tempFile = new File(accountDir, prefix + "tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(SnapshotCodec.compress(new FileOutputStream(tempFile)))) {
+            oos.writeUTF(accountNumber);
+            oos.writeLong(firstIndex);
+            oos.writeDouble(openingBalance);
+            oos.writeObject(new ArrayList<>(transactions));
+        }
+        if (!tempFile.renameTo(target)) {
+            throw new IOException("Cannot write " + target);
+        }
+        return target.length();
+    }
+
+    // Archived transactions [0, archivedCount) of an account dated within the inclusive
+    // "yyyy-MM-dd" bounds, either of which may be null, in history order
+    List<Transaction> read(String accountNumber, long archivedCount, String fromDate, String toDate) throws IOException {
+        List<Transaction> result = new ArrayList<>();
+        forEach(accountNumber, archivedCount, fromDate, toDate, result::add);
+        return result;
+    }
+
+    // As read, but handing the transactions over one segment at a time; returns how many
+    @SuppressWarnings("unchecked")
+    <E extends Exception> long forEach(String accountNumber, long archivedCount, String fromDate, String toDate,
+                                       TransactionSink<E> sink) throws IOException, E {
+        long emitted = 0;
+        if (archivedCount == 0) return emitted;
+        String from = fromDate != null ? fromDate.replace("-", "") : null;
+        String to = toDate != null ? toDate.replace("-", "") : null;
+        long expected = 0;
+        for (Segment segment : segments(accountNumber, archivedCount)) {
+            if (segment.firstIndex != expected) {
+                throw new IOException("Archive of " + accountNumber + " is missing transactions from " + expected);
+            }
+            expected += segment.count;
+            if ((from != null && segment.lastDay.compareTo(from) < 0) || (to != null && segment.firstDay.compareTo(to) > 0)) {
+                continue;
+            }
+            List<Transaction> transactions;
+            try (ObjectInputStream ois = new ObjectInputStream(SnapshotCodec.decompress(new FileInputStream(segment.file)))) {
+                ois.readUTF();
+                ois.readLong();
+                ois.readDouble();
+                transactions = (List<Transaction>) ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(segment.file + " is not an archive segment", e);
+            }
+            for (Transaction transaction : transactions) {
+                if (transaction.isDatedWithin(fromDate, toDate)) {
+                    sink.accept(transaction);
+                    emitted++;
+                }
+            }
+        }
+        if (expected != archivedCount) {
+            throw new IOException("Archive of " + accountNumber + " holds " + expected + " of " + archivedCount
+                    + " transactions");
+        }
+        return emitted;
+    }
+
+    // Referenced segments in history order; unreferenced leftovers are skipped
+    private List<Segment> segments(String accountNumber, long archivedCount) {
+        List<Segment> segments = new ArrayList<>();
+        File[] files = new File(dir, accountNumber).listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) return segments;
+        for (File file : files) {
+            String[] parts = file.getName().substring(0, file.getName().length() - SUFFIX.length()).split("-");
+            if (parts.length != 4) continue;
+            Segment segment = new Segment(file, Long.parseLong(parts[0]), Integer.parseInt(parts[1]), parts[2], parts[3]);
+            if (segment.firstIndex + segment.count <= archivedCount) {
+                segments.add(segment);
+            }
+        }
+        segments.sort(Comparator.comparingLong(segment -> segment.firstIndex));
+        return segments;
+    }
+
+    private static String day(Transaction transaction) {
+        return transaction.getDate().substring(0, 10).replace("-", "");
+    }
+
+    private static class Segment {
+        final File file;
+        final long firstIndex;
+        final int count;
+        final String firstDay;
+        final String lastDay;
+
+        Segment(File file, long firstIndex, int count, String firstDay, String lastDay) {
+            this.file = file;
+            this.firstIndex = firstIndex;
+            this.count = count;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+class TransactionCsvExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String HEADER = "account_number,date,description,amount,balance\n";
+
+    public static class Result {
+        private final long rows;
+        private final long bytes;
+        private final long nanos;
+
+        Result(long rows, long bytes, long nanos) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public long getRows() { return rows; }
+        // Uncompressed CSV bytes
+        public long getBytes() { return bytes; }
+        public long getNanos() { return nanos; }
+
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows, %,d bytes in %.1f ms (%,.0f rows/s)",
+                    rows, bytes, nanos / 1_000_000.0, getRowsPerSecond());
+        }
+    }
+
+    private final FileChannel channel;
+    private final OutputStream gzip;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder row = new StringBuilder(128);
+    private long rows;
+    private long bytes;
+
+    private TransactionCsvExporter(Path file, boolean compress) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.gzip = compress ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) : null;
+    }
+
+    public static Result exportAccount(BankAccount account, Path file, boolean compress) throws IOException {
+        return exportAccounts(Collections.singletonList(account), null, null, file, compress);
+    }
+
+    public static Result exportBank(BankSystem bankSystem, Path file, boolean compress) throws IOException {
+        return exportAccounts(bankSystem.getAccounts(), null, null, file, compress);
+    }
+
+    // fromDate and toDate are inclusive "yyyy-MM-dd" bounds; either may be null
+    public static Result exportAccounts(Collection<BankAccount> accounts, String fromDate, String toDate,
+                                        Path file, boolean compress) throws IOException {
+        long start = System.nanoTime();
+        BankJfrEvents.Statement event = BankJfrEvents.statement();
+        TransactionCsvExporter exporter = new TransactionCsvExporter(file, compress);
+        try {
+            exporter.row.append(HEADER);
+            exporter.writeRow();
+            for (BankAccount account : accounts) {
+                exporter.writeAccount(account, fromDate, toDate);
+            }
+            exporter.flush();
+        } finally {
+            exporter.close();
+        }
+        BankMetrics.get().record("statement", start);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.format = compress ? "csv.gz" : "csv";
+                event.accountNumber = accounts.size() == 1 ? accounts.iterator().next().getAccountNumber() : "all";
+                event.rows = exporter.rows;
+                event.bytes = exporter.bytes;
+                event.commit();
+            }
+        }
+        return new Result(exporter.rows, exporter.bytes, System.nanoTime() - start);
+    }
+
+    private void writeAccount(BankAccount account, String fromDate, String toDate) throws IOException {
+        // Archived history comes first, a segment at a time, already narrowed to the date range
+        account.forEachInStatement(fromDate, toDate, t -> {
+            row.append(account.getAccountNumber()).append(',')
+               .append(t.getDate()).append(',');
+            appendQuoted(t.getDescription());
+            row.append(',');
+            appendMoney(t.getAmount());
+            row.append(',');
+            appendMoney(t.getBalance());
+            row.append('\n');
+            writeRow();
+            rows++;
+        });
+    }
+
+    private void appendQuoted(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    // Fixed two-decimal output without going through String.format
+    private void appendMoney(double amount) {
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            row.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        row.append(cents / 100).append('.');
+        if (fraction < 10) row.append('0');
+        row.append(fraction);
+    }
+
+    private void writeRow() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(row);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, false);
+            if (result.isOverflow()) {
+                flush();
+            } else if (result.isError()) {
+                // An unencodable description (e.g. a lone surrogate) fails the export rather than the row
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+        row.setLength(0);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        bytes += buffer.remaining();
+        if (gzip != null) {
+            gzip.write(buffer.array(), buffer.position(), buffer.remaining());
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+
+    private void close() throws IOException {
+        if (gzip != null) {
+            gzip.close();
+        }
+        channel.close();
+    }
+}
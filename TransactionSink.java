@@ -0,0 +1,5 @@
+// Receives a statement one transaction at a time (see BankAccount.forEachInStatement),
+// so exports never hold an account's whole history at once
+interface TransactionSink<E extends Exception> {
+    void accept(Transaction transaction) throws E;
+}
@@ -0,0 +1,170 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Inline velocity checks on customer withdrawals (transfers debit through withdraw too).
+// Each account has a sliding window of fixed time buckets held in primitive arrays with
+// running totals, so a check is O(1) and, once the account's window exists, allocation-free.
+//
+//   -Dbank.velocity=false              disable the stage
+//   -Dbank.velocity.windowSeconds=N    window length (default 600)
+//   -Dbank.velocity.flagCount=N        flag the Nth+1 debit in a window (default 10, 0 = off)
+//   -Dbank.velocity.flagAmount=X       flag when the window total would exceed X (default 100000)
+//   -Dbank.velocity.blockCount=N       refuse beyond N debits in a window (default 0 = off)
+//   -Dbank.velocity.blockAmount=X      refuse when the window total would exceed X (default 0 = off)
+//
+// Flags and blocks are counted in BankMetrics and emitted as securebank.VelocityAlert
+// JFR events; the time the stage adds to each debit is recorded as "velocity.check".
+class VelocityGuard {
+    enum Decision { ALLOW, FLAG, BLOCK }
+
+    private static final VelocityGuard INSTANCE = new VelocityGuard();
+    private static final int BUCKETS = 10;
+    // Idle windows are swept after this many checks once there are many of them
+    private static final int SWEEP_INTERVAL = 4096;
+    private static final int SWEEP_THRESHOLD = 100_000;
+
+    private final boolean enabled = !"false".equals(System.getProperty("bank.velocity"));
+    private final long bucketNanos =
+            Long.getLong("bank.velocity.windowSeconds", 600) * 1_000_000_000L / BUCKETS;
+    private final int flagCount = Integer.getInteger("bank.velocity.flagCount", 10);
+    private final double flagAmount = Double.parseDouble(System.getProperty("bank.velocity.flagAmount", "100000"));
+    private final int blockCount = Integer.getInteger("bank.velocity.blockCount", 0);
+    private final double blockAmount = Double.parseDouble(System.getProperty("bank.velocity.blockAmount", "0"));
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder checks = new LongAdder();
+
+    private static class Window {
+        final long[] bucketIds = new long[BUCKETS];
+        final int[] counts = new int[BUCKETS];
+        final double[] sums = new double[BUCKETS];
+        long currentBucket = Long.MIN_VALUE;
+        int count;
+        double sum;
+        // Set by the sweep under the monitor once the window is out of the map
+        boolean removed;
+
+        // Drops buckets that fell out of the window; touches at most BUCKETS slots
+        void advance(long bucket) {
+            if (bucket == currentBucket) return;
+            long from = Math.max(currentBucket + 1, bucket - BUCKETS + 1);
+            for (long b = from; b <= bucket; b++) {
+                int slot = (int) Math.floorMod(b, (long) BUCKETS);
+                count -= counts[slot];
+                sum -= sums[slot];
+                counts[slot] = 0;
+                sums[slot] = 0;
+                bucketIds[slot] = b;
+            }
+            currentBucket = bucket;
+        }
+
+        void add(long bucket, int countDelta, double amount) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (bucketIds[slot] != bucket) return; // the bucket already expired
+            counts[slot] += countDelta;
+            sums[slot] += amount;
+            count += countDelta;
+            sum += amount;
+        }
+    }
+
+    public static VelocityGuard get() {
+        return INSTANCE;
+    }
+
+    // Checks a debit against the window and, unless it is blocked, counts it in.
+    // Callers whose debit then fails hand it back with release().
+    public Decision admit(String accountNumber, double amount) {
+        if (!enabled) return Decision.ALLOW;
+        long start = System.nanoTime();
+        long bucket = Math.floorDiv(start, bucketNanos);
+        Decision decision;
+        int count;
+        double sum;
+        while (true) {
+            Window window = windows.get(accountNumber);
+            if (window == null) {
+                window = windows.computeIfAbsent(accountNumber, k -> new Window());
+            }
+            synchronized (window) {
+                // Swept between the lookup and the lock; a debit counted here would be lost
+                if (window.removed) continue;
+                window.advance(bucket);
+                count = window.count + 1;
+                sum = window.sum + amount;
+                decision = decide(count, sum);
+                if (decision != Decision.BLOCK) {
+                    window.add(bucket, 1, amount);
+                }
+                break;
+            }
+        }
+        if (decision != Decision.ALLOW) {
+            alert(accountNumber, decision, count, sum);
+        }
+        BankMetrics.get().record("velocity.check", start);
+        checks.increment();
+        if (windows.size() > SWEEP_THRESHOLD && (checks.sum() % SWEEP_INTERVAL) == 0) {
+            sweep(bucket);
+        }
+        return decision;
+    }
+
+    // Undoes an admitted debit that did not go through (e.g. insufficient funds)
+    public void release(String accountNumber, double amount) {
+        if (!enabled) return;
+        Window window = windows.get(accountNumber);
+        if (window == null) return;
+        long bucket = Math.floorDiv(System.nanoTime(), bucketNanos);
+        synchronized (window) {
+            window.advance(bucket);
+            window.add(bucket, -1, -amount);
+        }
+    }
+
+    // Whether a debit of amount would be refused right now, for explaining a failure
+    public boolean wouldBlock(String accountNumber, double amount) {
+        if (!enabled) return false;
+        Window window = windows.get(accountNumber);
+        if (window == null) return decide(1, amount) == Decision.BLOCK;
+        synchronized (window) {
+            window.advance(Math.floorDiv(System.nanoTime(), bucketNanos));
+            return decide(window.count + 1, window.sum + amount) == Decision.BLOCK;
+        }
+    }
+
+    private Decision decide(int count, double sum) {
+        if ((blockCount > 0 && count > blockCount) || (blockAmount > 0 && sum > blockAmount)) {
+            return Decision.BLOCK;
+        }
+        if ((flagCount > 0 && count > flagCount) || (flagAmount > 0 && sum > flagAmount)) {
+            return Decision.FLAG;
+        }
+        return Decision.ALLOW;
+    }
+
+    private void alert(String accountNumber, Decision decision, int count, double sum) {
+        BankMetrics.get().count(decision == Decision.BLOCK ? "velocity.blocked" : "velocity.flagged");
+        BankJfrEvents.VelocityAlert event = BankJfrEvents.velocityAlert();
+        if (event != null && event.shouldCommit()) {
+            event.accountNumber = accountNumber;
+            event.blocked = decision == Decision.BLOCK;
+            event.windowCount = count;
+            event.windowAmount = sum;
+            event.commit();
+        }
+    }
+
+    private void sweep(long bucket) {
+        for (Map.Entry<String, Window> entry : windows.entrySet()) {
+            Window window = entry.getValue();
+            synchronized (window) {
+                if (window.currentBucket <= bucket - BUCKETS && windows.remove(entry.getKey(), window)) {
+                    window.removed = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AccountNumberFilterTest {
+
+    public static void main(String[] args) throws Exception {
+        TestSupport.run("no false negatives", AccountNumberFilterTest::noFalseNegatives);
+        TestSupport.run("false positive rate near the target", AccountNumberFilterTest::falsePositiveRate);
+        TestSupport.run("file round-trip answers the same", AccountNumberFilterTest::roundTrip);
+        TestSupport.run("bank outgrowing the filter rebuilds it", AccountNumberFilterTest::outgrown);
+    }
+
+    static List<String> numbers(int count, int offset) {
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(String.format("ACC%09d", offset + i));
+        }
+        return numbers;
+    }
+
+    static void noFalseNegatives() {
+        AccountNumberFilter filter = AccountNumberFilter.create(100_000, 0.01);
+        List<String> numbers = numbers(100_000, 0);
+        numbers.forEach(filter::add);
+        for (String number : numbers) {
+            TestSupport.check(filter.mightContain(number), "lost " + number);
+        }
+        TestSupport.checkEquals(100_000L, filter.getInserted(), "inserted");
+        TestSupport.check(!filter.isFull(), "at capacity is not full");
+        filter.add("ACC999999999");
+        TestSupport.check(filter.isFull(), "past capacity is full");
+    }
+
+    static void falsePositiveRate() {
+        AccountNumberFilter filter = AccountNumberFilter.create(100_000, 0.01);
+        numbers(100_000, 0).forEach(filter::add);
+        int positives = 0;
+        for (String number : numbers(100_000, 500_000_000)) {
+            if (filter.mightContain(number)) positives++;
+        }
+        TestSupport.check(positives < 2000, positives + " false positives in 100,000");
+    }
+
+    static void roundTrip() throws IOException {
+        File dir = TestSupport.tempDir("bloom");
+        File file = new File(dir, "filter.bloom");
+        AccountNumberFilter filter = AccountNumberFilter.create(10_000, 0.01);
+        numbers(10_000, 0).forEach(filter::add);
+        filter.writeTo(file);
+        AccountNumberFilter read = AccountNumberFilter.readFrom(file);
+        TestSupport.checkEquals(filter.getInserted(), read.getInserted(), "inserted");
+        TestSupport.checkEquals(filter.toString(), read.toString(), "shape");
+        for (String number : numbers(20_000, 0)) {
+            TestSupport.checkEquals(filter.mightContain(number), read.mightContain(number), number);
+        }
+
+        File garbage = new File(dir, "garbage.bloom");
+        try (FileOutputStream out = new FileOutputStream(garbage)) {
+            out.write(new byte[64]);
+        }
+        TestSupport.checkThrows(IOException.class, () -> AccountNumberFilter.readFrom(garbage), "not a filter");
+    }
+
+    static void outgrown() {
+        // Read when the filter is built, so before the first BankSystem
+        System.setProperty("bank.bloom.expected", "16");
+        BankSystem bankSystem = new BankSystem();
+        List<String> registered = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            registered.add(bankSystem.registerAccount("n" + i, "a", "p", 10, "pw"));
+        }
+        for (String number : registered) {
+            TestSupport.check(bankSystem.accountExists(number), "lost " + number);
+        }
+        TestSupport.check(!bankSystem.accountExists("NOSUCHACCOUNT"), "unknown number");
+        TestSupport.check(bankSystem.getAccountFilterStats().contains("200 numbers"), bankSystem.getAccountFilterStats());
+    }
+}
@@ -0,0 +1,76 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AccountStoreTest {
+    private static final int MAX_ACCOUNTS = 10;
+
+    public static void main(String[] args) throws Exception {
+        // Read when the store is built, so before the first BankSystem
+        System.setProperty("bank.cache.maxAccounts", String.valueOf(MAX_ACCOUNTS));
+        BankSystem bankSystem = new BankSystem();
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            numbers.add(bankSystem.registerAccount("n" + i, "a", "p", 100 + i, "pw"));
+        }
+        File coldDir = BankSystem.companionFile(".accounts");
+
+        TestSupport.run("residency stays within the limit", () -> bounded(bankSystem, numbers, coldDir));
+        TestSupport.run("evicted accounts page back in intact", () -> pageIn(bankSystem, numbers));
+        TestSupport.run("unchanged accounts are not written back", () -> cleanEviction(bankSystem, numbers, coldDir));
+        TestSupport.run("change to a held evicted account is kept", () -> heldAccount(bankSystem, numbers));
+        TestSupport.run("cold accounts survive save and reload", () -> reload(bankSystem, numbers));
+    }
+
+    static void bounded(BankSystem bankSystem, List<String> numbers, File coldDir) {
+        TestSupport.check(bankSystem.getCacheStats().contains(MAX_ACCOUNTS + " resident"), bankSystem.getCacheStats());
+        for (String number : numbers.subList(0, numbers.size() - MAX_ACCOUNTS)) {
+            TestSupport.check(new File(coldDir, number + ".acct").isFile(), "cold file for " + number);
+        }
+    }
+
+    static void pageIn(BankSystem bankSystem, List<String> numbers) {
+        for (int i = 0; i < numbers.size(); i++) {
+            BankAccount account = bankSystem.getAccount(numbers.get(i));
+            TestSupport.checkEquals(numbers.get(i), account.getAccountNumber(), "account number");
+            TestSupport.checkClose(100 + i, account.getBalance(), "balance of " + numbers.get(i));
+            TestSupport.checkEquals(1, account.getTransactions().size(), "history of " + numbers.get(i));
+        }
+        TestSupport.check(bankSystem.getCacheStats().contains(MAX_ACCOUNTS + " resident"), bankSystem.getCacheStats());
+    }
+
+    static void cleanEviction(BankSystem bankSystem, List<String> numbers, File coldDir) {
+        File cold = new File(coldDir, numbers.get(0) + ".acct");
+        TestSupport.check(cold.setLastModified(1000), "set mtime");
+        // Page it in and read it, then push it out again behind the others
+        bankSystem.getAccount(numbers.get(0)).getBalance();
+        for (String number : numbers.subList(1, 2 * MAX_ACCOUNTS)) {
+            bankSystem.getAccount(number);
+        }
+        TestSupport.checkEquals(1000L, cold.lastModified(), "cold file untouched");
+    }
+
+    static void heldAccount(BankSystem bankSystem, List<String> numbers) {
+        // Held like a logged-in screen holds it while other lookups evict it
+        BankAccount held = bankSystem.getAccount(numbers.get(1));
+        for (String number : numbers.subList(2, 3 * MAX_ACCOUNTS)) {
+            bankSystem.getAccount(number);
+        }
+        held.deposit(1000);
+        TestSupport.check(bankSystem.getAccount(numbers.get(1)) == held, "one copy of a live account");
+        for (String number : numbers.subList(3 * MAX_ACCOUNTS, numbers.size())) {
+            bankSystem.getAccount(number);
+        }
+        TestSupport.checkClose(1101, bankSystem.getAccount(numbers.get(1)).getBalance(), "deposit kept");
+    }
+
+    static void reload(BankSystem bankSystem, List<String> numbers) {
+        bankSystem.saveData();
+        BankSystem reloaded = new BankSystem();
+        for (int i = 0; i < numbers.size(); i++) {
+            double expected = 100 + i + (i == 1 ? 1000 : 0);
+            TestSupport.checkClose(expected, reloaded.getAccount(numbers.get(i)).getBalance(),
+                    "reloaded balance of " + numbers.get(i));
+        }
+    }
+}
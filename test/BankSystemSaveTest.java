@@ -0,0 +1,68 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BankSystemSaveTest {
+
+    public static void main(String[] args) throws Exception {
+        BankSystem bankSystem = new BankSystem();
+        TestSupport.run("save and reload round-trip", () -> roundTrip(bankSystem));
+        TestSupport.run("concurrent saves never lose the data file", () -> concurrentSaves(bankSystem));
+    }
+
+    static void roundTrip(BankSystem bankSystem) {
+        String from = bankSystem.registerAccount("a", "x", "1", 500, "pw");
+        String to = bankSystem.registerAccount("b", "y", "2", 100, "pw");
+        TestSupport.check(bankSystem.transferFunds(from, to, 125), "transfer");
+        BankSystem reloaded = new BankSystem();
+        TestSupport.checkClose(375, reloaded.getAccount(from).getBalance(), "sender after reload");
+        TestSupport.checkClose(225, reloaded.getAccount(to).getBalance(), "receiver after reload");
+        TestSupport.check(reloaded.login(from, "pw") != null, "login after reload");
+    }
+
+    static void concurrentSaves(BankSystem bankSystem) throws Exception {
+        File dataFile = new File(System.getProperty("bank.dataFile"));
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            accounts.add(bankSystem.registerAccount("c" + i, "x", "1", 1000, "pw"));
+        }
+        int threads = 4;
+        int rounds = 100;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        CyclicBarrier done = new CyclicBarrier(threads, () -> {
+            if (!dataFile.isFile()) throw new AssertionError("data file missing after a round of saves");
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    for (int round = 0; round < rounds; round++) {
+                        start.await();
+                        bankSystem.getAccount(accounts.get((round * threads + seed) % accounts.size())).deposit(1);
+                        bankSystem.saveData();
+                        done.await();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    start.reset();
+                    done.reset();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) worker.join();
+        if (failure.get() != null) throw new AssertionError("concurrent saves failed", failure.get());
+
+        TestSupport.check(dataFile.isFile(), "data file after concurrent saves");
+        TestSupport.check(!new File(dataFile.getPath() + ".tmp").exists(), "temp file left behind");
+        BankSystem reloaded = new BankSystem();
+        double total = 0;
+        for (String number : accounts) total += reloaded.getAccount(number).getBalance();
+        TestSupport.checkClose(200 * 1000 + threads * rounds, total, "deposits after reload");
+    }
+}
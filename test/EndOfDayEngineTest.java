@@ -0,0 +1,74 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+public class EndOfDayEngineTest {
+
+    public static void main(String[] args) throws Exception {
+        BankSystem bankSystem = new BankSystem();
+        TestSupport.run("postings carry the business date", () -> businessDate(bankSystem));
+        TestSupport.run("re-running a date is a no-op", () -> idempotent(bankSystem));
+        TestSupport.run("fee never takes an account below zero", () -> feeFloor(bankSystem));
+        TestSupport.run("account that cannot load is counted and skipped", EndOfDayEngineTest::unavailable);
+    }
+
+    static List<EndOfDayRule> rules() {
+        return Arrays.asList(new InterestAccrualRule(3.65), new LowBalanceFeeRule(1000, 50));
+    }
+
+    static void businessDate(BankSystem bankSystem) {
+        String rich = bankSystem.registerAccount("r", "a", "p", 100_000, "pw");
+        String poor = bankSystem.registerAccount("p", "a", "p", 500, "pw");
+        EndOfDayEngine.Report report = new EndOfDayEngine(bankSystem, rules()).run("2020-02-28");
+        TestSupport.check(report.getProcessed() >= 2, report.toString());
+
+        Transaction interest = last(bankSystem.getAccount(rich));
+        TestSupport.checkEquals("2020-02-28 23:59:59", interest.getDate(), "interest date");
+        TestSupport.checkClose(10.0, interest.getAmount(), "interest at 3.65% a year");
+        TestSupport.checkClose(10.0, bankSystem.getAccount(rich).getMonthlyAggregate("2020-02").getTotalCredits(),
+                "interest counted in the business month");
+
+        Transaction fee = last(bankSystem.getAccount(poor));
+        TestSupport.checkEquals("2020-02-28 23:59:59", fee.getDate(), "fee date");
+        TestSupport.checkClose(-50, fee.getAmount(), "fee");
+        TestSupport.checkEquals("2020-02-28", bankSystem.getAccount(poor).getLastEndOfDayDate(), "closed date");
+    }
+
+    static void idempotent(BankSystem bankSystem) {
+        String number = bankSystem.registerAccount("i", "a", "p", 5_000, "pw");
+        EndOfDayEngine engine = new EndOfDayEngine(bankSystem, rules());
+        engine.run("2020-03-01");
+        int size = bankSystem.getAccount(number).getTransactions().size();
+        EndOfDayEngine.Report again = engine.run("2020-03-01");
+        TestSupport.checkEquals(0, again.getProcessed(), "processed on re-run");
+        TestSupport.checkEquals(size, bankSystem.getAccount(number).getTransactions().size(), "history on re-run");
+        TestSupport.checkEquals(0, engine.run("2020-02-15").getProcessed(), "earlier date after a later one");
+    }
+
+    static void feeFloor(BankSystem bankSystem) {
+        String number = bankSystem.registerAccount("f", "a", "p", 20, "pw");
+        new EndOfDayEngine(bankSystem, Arrays.asList(new LowBalanceFeeRule(1000, 50))).run("2020-04-01");
+        TestSupport.checkClose(0, bankSystem.getAccount(number).getBalance(), "balance after fee");
+    }
+
+    static void unavailable() throws Exception {
+        // A damaged cold file still names an account, but it can never page in
+        File coldDir = BankSystem.companionFile(".accounts");
+        coldDir.mkdirs();
+        try (FileOutputStream out = new FileOutputStream(new File(coldDir, "DAMAGED.acct"))) {
+            out.write(new byte[64]);
+        }
+        BankSystem bankSystem = new BankSystem();
+        String number = bankSystem.registerAccount("u", "a", "p", 5_000, "pw");
+        EndOfDayEngine.Report report = new EndOfDayEngine(bankSystem, rules()).run("2020-05-01");
+        TestSupport.checkEquals(1, report.getFailed(), "failed");
+        TestSupport.check(report.getProcessed() > 0, report.toString());
+        TestSupport.check(bankSystem.getAccount(number).getBalance() > 5_000, "interest still posted");
+    }
+
+    private static Transaction last(BankAccount account) {
+        List<Transaction> transactions = account.getTransactions();
+        return transactions.get(transactions.size() - 1);
+    }
+}
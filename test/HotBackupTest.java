@@ -0,0 +1,107 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class HotBackupTest {
+    private static final int ACCOUNTS = 40;
+
+    public static void main(String[] args) throws Exception {
+        BankSystem bankSystem = new BankSystem();
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            numbers.add(bankSystem.registerAccount("n" + i, "a", "p", 1000, "pw"));
+        }
+        File dir = TestSupport.tempDir("backup");
+        File backup = new File(dir, "bank.bak");
+
+        TestSupport.run("backup under load holds one instant", () -> backupUnderLoad(bankSystem, numbers, backup));
+        TestSupport.run("damaged backup is refused before install", () -> damaged(backup, dir));
+        TestSupport.run("truncated backup is refused", () -> truncated(backup, dir));
+        TestSupport.run("restore installs the backup", () -> restore(numbers, backup));
+    }
+
+    static void backupUnderLoad(BankSystem bankSystem, List<String> numbers, File backup) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread load = new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                bankSystem.transferFunds(numbers.get(i % ACCOUNTS), numbers.get((i * 7 + 3) % ACCOUNTS), 1 + i % 5);
+            }
+        });
+        load.start();
+        HotBackup.Result result;
+        try {
+            Thread.sleep(50);
+            result = new HotBackup(bankSystem).backup(backup);
+        } finally {
+            running.set(false);
+            load.join();
+        }
+        TestSupport.checkEquals(ACCOUNTS, result.getAccounts(), "accounts");
+        // Transfers move money without creating it, so a consistent cut always totals the same
+        double total = 0;
+        for (BankAccount account : read(backup)) {
+            total += account.getBalance();
+        }
+        TestSupport.checkClose(ACCOUNTS * 1000.0, total, "total in the backup");
+        bankSystem.saveData();
+    }
+
+    static void damaged(File backup, File dir) throws Exception {
+        File copy = new File(dir, "damaged.bak");
+        Files.copy(backup.toPath(), copy.toPath());
+        try (RandomAccessFile file = new RandomAccessFile(copy, "rw")) {
+            long middle = file.length() / 2;
+            file.seek(middle);
+            int b = file.read();
+            file.seek(middle);
+            file.write(b ^ 0x01);
+        }
+        File dataFile = BankSystem.companionFile("");
+        byte[] before = Files.readAllBytes(dataFile.toPath());
+        IOException error = TestSupport.checkThrows(IOException.class, () -> HotBackup.restore(copy), "bit flip");
+        TestSupport.check(error.getMessage().contains("checksum"), error.getMessage());
+        TestSupport.check(Arrays.equals(before, Files.readAllBytes(dataFile.toPath())), "data file untouched");
+    }
+
+    static void truncated(File backup, File dir) throws Exception {
+        File copy = new File(dir, "truncated.bak");
+        byte[] bytes = Files.readAllBytes(backup.toPath());
+        Files.write(copy.toPath(), Arrays.copyOf(bytes, bytes.length - 100));
+        TestSupport.checkThrows(IOException.class, () -> HotBackup.restore(copy), "truncated");
+        Files.write(copy.toPath(), new byte[5]);
+        TestSupport.checkThrows(IOException.class, () -> HotBackup.restore(copy), "shorter than the trailer");
+    }
+
+    static void restore(List<String> numbers, File backup) throws Exception {
+        List<BankAccount> expected = read(backup);
+        HotBackup.Result result = HotBackup.restore(backup);
+        TestSupport.checkEquals(ACCOUNTS, result.getAccounts(), "accounts");
+        TestSupport.check(BankSystem.companionFile(".pre-restore").isFile(), "previous data file kept");
+        BankSystem restored = new BankSystem();
+        for (BankAccount account : expected) {
+            BankAccount now = restored.getAccount(account.getAccountNumber());
+            TestSupport.checkClose(account.getBalance(), now.getBalance(), "balance of " + account.getAccountNumber());
+            TestSupport.checkEquals(account.getTransactions().size(), now.getTransactions().size(), "history");
+        }
+        TestSupport.checkEquals(numbers.size(), restored.getAccountNumbers().size(), "account count");
+    }
+
+    // Accounts in a backup, read the way restore does but without installing them
+    private static List<BankAccount> read(File backup) throws Exception {
+        List<BankAccount> accounts = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(backup)))) {
+            in.readInt();
+            in.readInt();
+            in.readLong();
+            int count = in.readInt();
+            ObjectInputStream ois = new ObjectInputStream(SnapshotCodec.decompress(in));
+            for (int i = 0; i < count; i++) {
+                accounts.add((BankAccount) ois.readObject());
+            }
+        }
+        return accounts;
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.List;
+
+public class LedgerAuditTest {
+
+    public static void main(String[] args) throws Exception {
+        TestSupport.run("transfers reconcile cleanly", LedgerAuditTest::clean);
+        TestSupport.run("broken running balance is reported", LedgerAuditTest::runningBalance);
+        TestSupport.run("transfer leg without its partner is reported", LedgerAuditTest::unmatched);
+    }
+
+    static void clean() {
+        BankSystem bankSystem = new BankSystem();
+        String[] numbers = new String[20];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = bankSystem.registerAccount("n" + i, "a", "p", 1000, "pw");
+        }
+        for (int i = 0; i < 200; i++) {
+            bankSystem.transferFunds(numbers[i % 20], numbers[(i * 7 + 3) % 20], 1 + i % 5);
+        }
+        LedgerAudit.Report report = new LedgerAudit(bankSystem).run();
+        TestSupport.check(report.isClean(), report.toString());
+        TestSupport.check(report.getTransfersMatched() >= 190, report.toString());
+    }
+
+    static void runningBalance() {
+        BankSystem bankSystem = new BankSystem();
+        String number = bankSystem.registerAccount("r", "a", "p", 100, "pw");
+        BankAccount account = bankSystem.getAccount(number);
+        account.applyReplicatedPosting(account.getTransactions().size(), new Transaction("Bad", 10, 999), 999);
+        List<LedgerAudit.Discrepancy> discrepancies = new LedgerAudit(bankSystem).run().getDiscrepancies();
+        TestSupport.check(discrepancies.stream().anyMatch(d -> d.getKind() == LedgerAudit.Kind.RUNNING_BALANCE
+                && d.getAccountNumber().equals(number)), "running balance: " + discrepancies);
+        TestSupport.check(discrepancies.stream().anyMatch(d -> d.getKind() == LedgerAudit.Kind.ACCOUNT_BALANCE
+                && d.getAccountNumber().equals(number)), "account balance: " + discrepancies);
+    }
+
+    static void unmatched() {
+        BankSystem bankSystem = new BankSystem();
+        String from = bankSystem.registerAccount("f", "a", "p", 100, "pw");
+        String to = bankSystem.registerAccount("t", "a", "p", 100, "pw");
+        BankAccount receiver = bankSystem.getAccount(to);
+        receiver.applyReplicatedPosting(receiver.getTransactions().size(),
+                new Transaction("Transfer in", 25, 125, from + ">" + to + "@999999"), 125);
+        LedgerAudit.Report report = new LedgerAudit(bankSystem).run();
+        TestSupport.check(report.getDiscrepancies().stream().anyMatch(
+                d -> d.getKind() == LedgerAudit.Kind.UNMATCHED_TRANSFER && d.getAccountNumber().equals(to)),
+                report.getDiscrepancies().toString());
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ReplicationTest {
+
+    public static void main(String[] args) throws Exception {
+        TestSupport.run("posting past a gap is refused, replays are ignored", ReplicationTest::gap);
+        TestSupport.run("records round-trip through the standby's filter", ReplicationTest::filterAccepts);
+        TestSupport.run("filter refuses classes replication never ships", ReplicationTest::filterRejects);
+        TestSupport.run("handshake passes with the shared secret", () -> handshake("primary-and-standby-secret", true));
+        TestSupport.run("handshake fails both ways on a wrong secret", () -> handshake("some-other-long-secret", false));
+        TestSupport.run("replication refuses to start without a secret", ReplicationTest::noSecret);
+    }
+
+    static void gap() {
+        BankSystem bankSystem = new BankSystem();
+        BankAccount account = bankSystem.getAccount(bankSystem.registerAccount("g", "a", "p", 100, "pw"));
+        int next = account.getTransactions().size();
+        TestSupport.checkThrows(IllegalStateException.class,
+                () -> account.applyReplicatedPosting(next + 1, new Transaction("Skipped", 5, 105), 105), "gap");
+        TestSupport.checkEquals(next, account.getTransactions().size(), "nothing applied past the gap");
+
+        account.applyReplicatedPosting(next, new Transaction("Deposit", 5, 105), 105);
+        account.applyReplicatedPosting(next, new Transaction("Deposit", 5, 105), 105);
+        account.applyReplicatedPosting(next - 1, new Transaction("Old", 50, 150), 150);
+        TestSupport.checkEquals(next + 1, account.getTransactions().size(), "replays ignored");
+        TestSupport.checkClose(105, account.getBalance(), "balance");
+    }
+
+    static void filterAccepts() throws Exception {
+        BankSystem bankSystem = new BankSystem();
+        BankAccount account = bankSystem.getAccount(bankSystem.registerAccount("f", "a", "p", 100, "pw"));
+        bankSystem.transferFunds(account.getAccountNumber(), bankSystem.registerAccount("t", "a", "p", 0, "pw"), 10);
+        ReplicationRecord open;
+        synchronized (account) {
+            open = ReplicationRecord.open(1, account);
+        }
+        ObjectInputStream in = filtered(open, ReplicationRecord.heartbeat(2), account.pointInTimeCopy().materialize());
+        ReplicationRecord copy = (ReplicationRecord) in.readObject();
+        TestSupport.checkEquals(ReplicationRecord.Kind.OPEN, copy.kind, "kind");
+        TestSupport.checkEquals(account.getTransactions().size(), copy.account.getTransactions().size(), "history");
+        TestSupport.checkEquals(ReplicationRecord.Kind.HEARTBEAT, ((ReplicationRecord) in.readObject()).kind, "heartbeat");
+        TestSupport.checkClose(90, ((BankAccount) in.readObject()).getBalance(), "base copy");
+    }
+
+    static void filterRejects() throws Exception {
+        ObjectInputStream in = filtered(new Date());
+        TestSupport.checkThrows(InvalidClassException.class, in::readObject, "Date");
+    }
+
+    static void handshake(String standbySecret, boolean accepted) throws Exception {
+        byte[] primarySecret = "primary-and-standby-secret".getBytes(StandardCharsets.UTF_8);
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket standby = new Socket(server.getInetAddress(), server.getLocalPort());
+             Socket primary = server.accept()) {
+            standby.setSoTimeout(5000);
+            primary.setSoTimeout(5000);
+            CompletableFuture<Void> primarySide = CompletableFuture.runAsync(() -> {
+                try {
+                    ReplicationHandshake.authenticateStandby(new DataInputStream(primary.getInputStream()),
+                            new DataOutputStream(primary.getOutputStream()), primarySecret);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    // Lets a standby that rejected the primary see end of stream instead of waiting
+                    closeQuietly(primary);
+                }
+            });
+            TestSupport.Action standbySide = () -> ReplicationHandshake.authenticatePrimary(
+                    new DataInputStream(standby.getInputStream()), new DataOutputStream(standby.getOutputStream()),
+                    standbySecret.getBytes(StandardCharsets.UTF_8));
+            if (accepted) {
+                standbySide.run();
+                primarySide.get(5, TimeUnit.SECONDS);
+            } else {
+                TestSupport.checkThrows(IOException.class, standbySide, "standby rejects the primary");
+                closeQuietly(standby);
+                TestSupport.checkThrows(Exception.class, () -> primarySide.get(5, TimeUnit.SECONDS),
+                        "primary rejects the standby");
+            }
+        }
+    }
+
+    static void noSecret() throws Exception {
+        System.clearProperty("bank.replication.secretFile");
+        TestSupport.checkThrows(IOException.class, ReplicationHandshake::loadSecret, "unset");
+        File dir = TestSupport.tempDir("secret");
+        File secretFile = new File(dir, "secret");
+        Files.write(secretFile.toPath(), "short\n".getBytes(StandardCharsets.UTF_8));
+        System.setProperty("bank.replication.secretFile", secretFile.getPath());
+        TestSupport.checkThrows(IOException.class, ReplicationHandshake::loadSecret, "too short");
+        TestSupport.checkThrows(IOException.class, () -> new ReplicationPrimary(new BankSystem()).start(0), "primary");
+        Files.write(secretFile.toPath(), "a-long-enough-secret\n".getBytes(StandardCharsets.UTF_8));
+        TestSupport.checkEquals("a-long-enough-secret", new String(ReplicationHandshake.loadSecret(),
+                StandardCharsets.UTF_8), "trimmed");
+        System.clearProperty("bank.replication.secretFile");
+    }
+
+    private static ObjectInputStream filtered(Object... objects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (Object object : objects) {
+                out.writeObject(object);
+            }
+        }
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        in.setObjectInputFilter(ReplicationHandshake.RECORD_FILTER);
+        return in;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Test teardown
+        }
+    }
+}
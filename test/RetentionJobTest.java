@@ -0,0 +1,91 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RetentionJobTest {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("bank.retention.minTransactions", "1");
+        BankSystem bankSystem = new BankSystem();
+        String[] numbers = new String[10];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = bankSystem.registerAccount("n" + i, "a", "p", 5000, "pw");
+        }
+        // Back-valued interest, so one day of the history is known exactly
+        new EndOfDayEngine(bankSystem, Collections.singletonList(new InterestAccrualRule(3.65))).run("2020-02-28");
+        for (int i = 0; i < 300; i++) {
+            bankSystem.transferFunds(numbers[i % 10], numbers[(i * 3 + 1) % 10], 1 + i % 7);
+        }
+        List<List<Transaction>> before = new ArrayList<>();
+        for (String number : numbers) {
+            before.add(bankSystem.getAccount(number).getStatement(null, null));
+        }
+
+        RetentionJob.Report report = new RetentionJob(bankSystem).run("2999-01-01");
+        TestSupport.check(report.getArchivedAccounts() == numbers.length && report.getFailed() == 0, report.toString());
+
+        TestSupport.run("opening balance carries the archived part", () -> openingBalance(bankSystem, numbers));
+        TestSupport.run("statements read archive then live history", () -> complete(bankSystem, numbers, before));
+        TestSupport.run("date range reaches into the archive", () -> dateRange(bankSystem, numbers));
+        TestSupport.run("transfers reconcile against archived legs", () -> audit(bankSystem));
+        TestSupport.run("backup folds archived history back in", () -> backup(bankSystem, numbers, before));
+    }
+
+    static void openingBalance(BankSystem bankSystem, String[] numbers) {
+        for (String number : numbers) {
+            BankAccount account = bankSystem.getAccount(number);
+            TestSupport.checkEquals(1, account.getTransactions().size(), "only the latest stays live");
+            double balance = account.getOpeningBalance();
+            for (Transaction transaction : account.getTransactions()) {
+                balance += transaction.getAmount();
+            }
+            TestSupport.checkClose(account.getBalance(), balance, "opening balance of " + number);
+        }
+    }
+
+    static void complete(BankSystem bankSystem, String[] numbers, List<List<Transaction>> before) throws Exception {
+        for (int i = 0; i < numbers.length; i++) {
+            BankAccount account = bankSystem.getAccount(numbers[i]);
+            List<Transaction> expected = before.get(i);
+            List<Transaction> streamed = new ArrayList<>();
+            long rows = account.forEachInStatement(null, null, streamed::add);
+            TestSupport.checkEquals((long) expected.size(), rows, "rows of " + numbers[i]);
+            TestSupport.checkEquals(expected.size(), streamed.size(), "streamed rows of " + numbers[i]);
+            TestSupport.checkEquals(account.getArchivedCount() + 1, rows, "archived plus live");
+            for (int row = 0; row < expected.size(); row++) {
+                TestSupport.checkEquals(expected.get(row).getDate(), streamed.get(row).getDate(), "date at " + row);
+                TestSupport.checkClose(expected.get(row).getBalance(), streamed.get(row).getBalance(), "balance at " + row);
+            }
+            TestSupport.checkEquals(expected.size(), account.getStatement(null, null).size(), "getStatement");
+        }
+    }
+
+    static void dateRange(BankSystem bankSystem, String[] numbers) throws Exception {
+        for (String number : numbers) {
+            List<Transaction> day = bankSystem.getAccount(number).getStatement("2020-02-28", "2020-02-28");
+            TestSupport.checkEquals(1, day.size(), "interest day of " + number);
+            TestSupport.checkEquals("2020-02-28 23:59:59", day.get(0).getDate(), "interest date");
+        }
+    }
+
+    static void audit(BankSystem bankSystem) {
+        LedgerAudit.Report report = new LedgerAudit(bankSystem).run();
+        TestSupport.check(report.isClean(), report.toString());
+        // Only live legs are scanned; those whose partner was archived are not unmatched
+        TestSupport.check(report.getTransfersArchived() > 0, report.toString());
+    }
+
+    static void backup(BankSystem bankSystem, String[] numbers, List<List<Transaction>> before) throws Exception {
+        File file = new File(TestSupport.tempDir("retention"), "bank.bak");
+        new HotBackup(bankSystem).backup(file);
+        HotBackup.restore(file);
+        BankSystem restored = new BankSystem();
+        for (int i = 0; i < numbers.length; i++) {
+            BankAccount account = restored.getAccount(numbers[i]);
+            TestSupport.checkEquals(0L, account.getArchivedCount(), "nothing archived after restore");
+            TestSupport.checkEquals(before.get(i).size(), account.getTransactions().size(), "history of " + numbers[i]);
+            TestSupport.checkClose(bankSystem.getAccount(numbers[i]).getBalance(), account.getBalance(), "balance");
+        }
+    }
+}
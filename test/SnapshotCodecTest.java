@@ -0,0 +1,108 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SnapshotCodecTest {
+
+    public static void main(String[] args) throws Exception {
+        // Read once when the codec class loads, so before the first BankSystem
+        System.setProperty("bank.compression", "lz4");
+        System.setProperty("bank.compression.level", "12");
+        TestSupport.run("unknown settings fall back instead of failing", SnapshotCodecTest::badSettings);
+        BankSystem bankSystem = new BankSystem();
+        List<BankAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            BankAccount account = bankSystem.getAccount(bankSystem.registerAccount("n" + i, "a", "p", 100, "pw"));
+            for (int j = 0; j < 50; j++) {
+                account.deposit(1 + j);
+            }
+            accounts.add(account.pointInTimeCopy().materialize());
+        }
+        byte[] raw = serialize(accounts, null);
+
+        for (SnapshotCodec.Codec codec : SnapshotCodec.Codec.values()) {
+            TestSupport.run(codec + " round-trips and is detected on read", () -> roundTrip(accounts, raw, codec));
+        }
+        TestSupport.run("plain serialization from before compression still reads", () -> plain(accounts, raw));
+        TestSupport.run("compressed codecs shrink serialization", () -> shrinks(accounts, raw));
+        TestSupport.run("counting streams count uncompressed bytes", () -> counting(raw));
+    }
+
+    static void badSettings() throws Exception {
+        TestSupport.checkEquals(SnapshotCodec.Codec.NONE, SnapshotCodec.codec(), "codec");
+        TestSupport.checkEquals("none", SnapshotCodec.describe(), "described");
+        BankSystem bankSystem = new BankSystem();
+        String number = bankSystem.registerAccount("b", "a", "p", 100, "pw");
+        bankSystem.saveData();
+        TestSupport.checkClose(100, new BankSystem().getAccount(number).getBalance(), "reloaded balance");
+        // Callers that pick a codec explicitly get the fallback level rather than an error
+        serialize(List.of(bankSystem.getAccount(number)), SnapshotCodec.Codec.DEFLATE);
+    }
+
+    static void roundTrip(List<BankAccount> accounts, byte[] raw, SnapshotCodec.Codec codec) throws Exception {
+        byte[] stored = serialize(accounts, codec);
+        TestSupport.checkEquals(raw.length, readAll(SnapshotCodec.decompress(new ByteArrayInputStream(stored))).length,
+                "decompressed size");
+        check(accounts, deserialize(stored));
+    }
+
+    static void plain(List<BankAccount> accounts, byte[] raw) throws Exception {
+        check(accounts, deserialize(raw));
+        TestSupport.checkEquals(0, readAll(SnapshotCodec.decompress(new ByteArrayInputStream(new byte[0]))).length,
+                "empty stream");
+    }
+
+    static void shrinks(List<BankAccount> accounts, byte[] raw) throws Exception {
+        for (SnapshotCodec.Codec codec : new SnapshotCodec.Codec[] {SnapshotCodec.Codec.DEFLATE, SnapshotCodec.Codec.GZIP}) {
+            int stored = serialize(accounts, codec).length;
+            TestSupport.check(stored * 3 < raw.length, codec + ": " + stored + " of " + raw.length + " bytes");
+        }
+    }
+
+    static void counting(byte[] raw) throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        SnapshotCodec.CountingOutputStream counted =
+                new SnapshotCodec.CountingOutputStream(SnapshotCodec.compress(sink, SnapshotCodec.Codec.DEFLATE));
+        counted.write(raw, 0, raw.length);
+        counted.write(0);
+        counted.close();
+        TestSupport.checkEquals(raw.length + 1L, counted.getCount(), "written");
+
+        SnapshotCodec.CountingInputStream read = new SnapshotCodec.CountingInputStream(
+                SnapshotCodec.decompress(new ByteArrayInputStream(sink.toByteArray())));
+        TestSupport.checkEquals(raw.length + 1, readAll(read).length, "read back");
+        TestSupport.checkEquals(raw.length + 1L, read.getCount(), "read");
+    }
+
+    // codec null writes plain serialization, as files did before compression
+    private static byte[] serialize(List<BankAccount> accounts, SnapshotCodec.Codec codec) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(codec != null ? SnapshotCodec.compress(bytes, codec) : bytes)) {
+            out.writeObject(new ArrayList<>(accounts));
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<BankAccount> deserialize(byte[] stored) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(SnapshotCodec.decompress(new ByteArrayInputStream(stored)))) {
+            return (List<BankAccount>) in.readObject();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void check(List<BankAccount> expected, List<BankAccount> actual) {
+        TestSupport.checkEquals(expected.size(), actual.size(), "accounts");
+        for (int i = 0; i < expected.size(); i++) {
+            TestSupport.checkEquals(expected.get(i).getAccountNumber(), actual.get(i).getAccountNumber(), "number");
+            TestSupport.checkClose(expected.get(i).getBalance(), actual.get(i).getBalance(), "balance");
+            TestSupport.checkEquals(expected.get(i).getTransactions().size(), actual.get(i).getTransactions().size(),
+                    "history");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+public class StandingInstructionSchedulerTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    public static void main(String[] args) throws Exception {
+        BankSystem bankSystem = new BankSystem();
+        TestSupport.run("missed daily runs are caught up once", () -> catchUp(bankSystem));
+        TestSupport.run("a run already in the history is not paid twice", () -> noDoublePay(bankSystem));
+        TestSupport.run("limited instructions stop after their runs", () -> limited(bankSystem));
+        TestSupport.run("only the payer can cancel", () -> cancel(bankSystem));
+    }
+
+    static void catchUp(BankSystem bankSystem) {
+        String from = bankSystem.registerAccount("f", "a", "p", 1000, "pw");
+        String to = bankSystem.registerAccount("t", "a", "p", 0, "pw");
+        long now = System.currentTimeMillis();
+        StandingInstructionScheduler scheduler = new StandingInstructionScheduler(bankSystem);
+        TestSupport.check(scheduler.add(from, to, 10, StandingInstruction.Frequency.DAILY,
+                now - 3 * DAY - DAY / 2, 0) != null, "add");
+        StandingInstructionScheduler.Report report = scheduler.runDue(now);
+        TestSupport.checkEquals(4, report.getExecuted(), "runs posted: " + report);
+        TestSupport.checkClose(40, bankSystem.getAccount(to).getBalance(), "receiver");
+        TestSupport.checkEquals(0, scheduler.runDue(now).getExecuted(), "second pass");
+        // Reloaded from <dataFile>.standing with the next run still in the future
+        TestSupport.checkEquals(0, new StandingInstructionScheduler(bankSystem).runDue(now).getExecuted(), "reloaded");
+    }
+
+    static void noDoublePay(BankSystem bankSystem) throws Exception {
+        String from = bankSystem.registerAccount("f", "a", "p", 1000, "pw");
+        String to = bankSystem.registerAccount("t", "a", "p", 0, "pw");
+        long now = System.currentTimeMillis();
+        StandingInstructionScheduler scheduler = new StandingInstructionScheduler(bankSystem);
+        scheduler.add(from, to, 25, StandingInstruction.Frequency.WEEKLY, now - DAY, 0);
+        File schedule = BankSystem.companionFile(".standing");
+        File before = new File(schedule.getPath() + ".before");
+        Files.copy(schedule.toPath(), before.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        TestSupport.checkEquals(1, scheduler.runDue(now).getExecuted(), "first run");
+
+        // As if the schedule save was lost in a crash after the postings were saved
+        Files.move(before.toPath(), schedule.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        StandingInstructionScheduler.Report report = new StandingInstructionScheduler(bankSystem).runDue(now);
+        TestSupport.checkEquals(0, report.getExecuted(), "posted after restart: " + report);
+        TestSupport.checkClose(25, bankSystem.getAccount(to).getBalance(), "receiver");
+    }
+
+    static void limited(BankSystem bankSystem) {
+        String from = bankSystem.registerAccount("f", "a", "p", 1000, "pw");
+        String to = bankSystem.registerAccount("t", "a", "p", 0, "pw");
+        long now = System.currentTimeMillis();
+        StandingInstructionScheduler scheduler = new StandingInstructionScheduler(bankSystem);
+        scheduler.add(from, to, 5, StandingInstruction.Frequency.DAILY, now - 10 * DAY, 3);
+        TestSupport.checkEquals(3, scheduler.runDue(now).getExecuted(), "runs");
+        TestSupport.check(scheduler.list(from).isEmpty(), "finished instruction still listed");
+    }
+
+    static void cancel(BankSystem bankSystem) {
+        String from = bankSystem.registerAccount("f", "a", "p", 1000, "pw");
+        String to = bankSystem.registerAccount("t", "a", "p", 0, "pw");
+        long now = System.currentTimeMillis();
+        StandingInstructionScheduler scheduler = new StandingInstructionScheduler(bankSystem);
+        StandingInstruction instruction = scheduler.add(from, to, 5, StandingInstruction.Frequency.DAILY, now + DAY, 0);
+        TestSupport.check(!scheduler.cancel(to, instruction.getId()), "cancelled by the payee");
+        TestSupport.check(scheduler.cancel(from, instruction.getId()), "cancelled by the payer");
+        scheduler.runDue(now + 5 * DAY);
+        TestSupport.checkClose(0, bankSystem.getAccount(to).getBalance(), "receiver after cancel");
+    }
+}
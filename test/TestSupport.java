@@ -0,0 +1,54 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// Minimal assertions for the engine tests, which run as plain main() programs so they
+// need nothing beyond the JDK. See run-tests.sh.
+final class TestSupport {
+
+    private TestSupport() {
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+
+    static void checkEquals(Object expected, Object actual, String what) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            throw new AssertionError(what + ": expected " + expected + ", found " + actual);
+        }
+    }
+
+    static void checkClose(double expected, double actual, String what) {
+        if (Math.abs(expected - actual) > 0.005) {
+            throw new AssertionError(what + ": expected " + expected + ", found " + actual);
+        }
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+
+    static <T extends Throwable> T checkThrows(Class<T> type, Action action, String what) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) return type.cast(e);
+            throw new AssertionError(what + ": expected " + type.getSimpleName() + ", got " + e, e);
+        }
+        throw new AssertionError(what + ": expected " + type.getSimpleName());
+    }
+
+    static File tempDir(String prefix) throws IOException {
+        File dir = Files.createTempDirectory(prefix).toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    // Runs one named case, reporting it the way run-tests.sh expects
+    static void run(String name, Action test) throws Exception {
+        long start = System.nanoTime();
+        test.run();
+        System.out.printf("  ok %-50s %6.1f ms%n", name, (System.nanoTime() - start) / 1_000_000.0);
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.*;
+
+public class TimingWheelTest {
+
+    public static void main(String[] args) throws Exception {
+        TestSupport.run("entries fire once, on their tick, across levels", TimingWheelTest::firesOnTime);
+        TestSupport.run("cancelled entries never fire", TimingWheelTest::cancel);
+        TestSupport.run("past deadlines fire on the next advance", TimingWheelTest::pastDeadline);
+    }
+
+    static void firesOnTime() {
+        long tick = 10;
+        long start = 1_000_000;
+        TimingWheel<Long> wheel = new TimingWheel<>(tick, start);
+        Random random = new Random(7);
+        Map<Long, Long> deadlines = new HashMap<>();
+        // Spread over the first four levels (64^3 ticks and beyond)
+        for (long id = 0; id < 5000; id++) {
+            long deadline = start + (long) (random.nextDouble() * random.nextDouble() * 400_000) * tick;
+            deadlines.put(id, deadline);
+            wheel.schedule(id, deadline);
+        }
+        TestSupport.checkEquals(5000, wheel.size(), "size");
+        Set<Long> fired = new HashSet<>();
+        long[] lastDeadline = {0};
+        for (long now = start; now <= start + 400_000 * tick; now += 997 * tick) {
+            long until = now;
+            wheel.advanceTo(now, id -> {
+                long deadline = deadlines.get(id);
+                TestSupport.check(fired.add(id), "fired twice: " + id);
+                TestSupport.check(deadline / tick <= until / tick, "fired early: " + id);
+                TestSupport.check(deadline >= lastDeadline[0], "out of order: " + id);
+                lastDeadline[0] = deadline;
+            });
+            lastDeadline[0] = 0;
+            for (Map.Entry<Long, Long> entry : deadlines.entrySet()) {
+                if (entry.getValue() / tick <= now / tick) {
+                    TestSupport.check(fired.contains(entry.getKey()), "missed: " + entry.getKey());
+                }
+            }
+        }
+        TestSupport.checkEquals(5000, fired.size(), "fired");
+        TestSupport.checkEquals(0, wheel.size(), "size after");
+    }
+
+    static void cancel() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        List<TimingWheel.Timer<Integer>> timers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            timers.add(wheel.schedule(i, i * 37L));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            wheel.cancel(timers.get(i));
+            wheel.cancel(timers.get(i));
+        }
+        TestSupport.checkEquals(500, wheel.size(), "size after cancel");
+        List<Integer> fired = new ArrayList<>();
+        wheel.advanceTo(1000 * 37L, fired::add);
+        TestSupport.checkEquals(500, fired.size(), "fired");
+        for (int id : fired) TestSupport.check(id % 2 == 1, "cancelled entry fired: " + id);
+    }
+
+    static void pastDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 50_000);
+        wheel.schedule("late", 10_000);
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(50_000, fired::add);
+        TestSupport.checkEquals(Collections.singletonList("late"), fired, "fired");
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.*;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class TransactionCsvExporterTest {
+
+    public static void main(String[] args) throws Exception {
+        TestSupport.run("rows match the history", TransactionCsvExporterTest::rowsMatchHistory);
+        TestSupport.run("awkward descriptions stay in one field", TransactionCsvExporterTest::quoting);
+        TestSupport.run("gzip output decompresses to the same rows", TransactionCsvExporterTest::gzip);
+        TestSupport.run("unencodable text fails the export", TransactionCsvExporterTest::unencodable);
+    }
+
+    static void rowsMatchHistory() throws Exception {
+        BankAccount account = new BankAccount("10000001", "n", "a", "p", 100, "pw");
+        account.deposit(25.5);
+        account.withdraw(0.75);
+        Path file = TestSupport.tempDir("csv").toPath().resolve("out.csv");
+        TransactionCsvExporter.Result result = TransactionCsvExporter.exportAccount(account, file, false);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        TestSupport.checkEquals(3L, result.getRows(), "rows");
+        TestSupport.checkEquals("account_number,date,description,amount,balance", lines.get(0), "header");
+        TestSupport.check(lines.get(2).endsWith(",Deposit,25.50,125.50"), lines.get(2));
+        TestSupport.check(lines.get(3).endsWith(",Withdrawal,-0.75,124.75"), lines.get(3));
+        TestSupport.checkEquals(Files.size(file), result.getBytes(), "bytes");
+    }
+
+    static void quoting() throws Exception {
+        BankAccount account = new BankAccount("10000002", "n", "a", "p", 100, "pw");
+        account.credit("line\rbreak", 1);
+        account.credit("two\nlines", 1);
+        account.credit("a,b", 1);
+        account.credit("say \"hi\"", 1);
+        Path file = TestSupport.tempDir("csv").toPath().resolve("out.csv");
+        TransactionCsvExporter.exportAccount(account, file, false);
+        List<List<String>> records = parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        TestSupport.checkEquals(6, records.size(), "records");
+        for (List<String> record : records) {
+            TestSupport.checkEquals(5, record.size(), "fields in " + record);
+        }
+        TestSupport.checkEquals("line\rbreak", records.get(2).get(2), "bare CR");
+        TestSupport.checkEquals("two\nlines", records.get(3).get(2), "LF");
+        TestSupport.checkEquals("a,b", records.get(4).get(2), "comma");
+        TestSupport.checkEquals("say \"hi\"", records.get(5).get(2), "quotes");
+    }
+
+    static void gzip() throws Exception {
+        BankAccount account = new BankAccount("10000003", "n", "a", "p", 100, "pw");
+        for (int i = 0; i < 5000; i++) account.deposit(1);
+        File dir = TestSupport.tempDir("csv");
+        TransactionCsvExporter.exportAccount(account, dir.toPath().resolve("plain.csv"), false);
+        TransactionCsvExporter.exportAccount(account, dir.toPath().resolve("packed.csv.gz"), true);
+        byte[] plain = Files.readAllBytes(dir.toPath().resolve("plain.csv"));
+        byte[] unpacked;
+        try (InputStream in = new GZIPInputStream(new FileInputStream(new File(dir, "packed.csv.gz")))) {
+            unpacked = in.readAllBytes();
+        }
+        TestSupport.check(java.util.Arrays.equals(plain, unpacked), "gzip content differs");
+    }
+
+    static void unencodable() throws Exception {
+        BankAccount account = new BankAccount("10000004", "n", "a", "p", 100, "pw");
+        account.credit("broken \ud800 text", 1);
+        Path file = TestSupport.tempDir("csv").toPath().resolve("out.csv");
+        TestSupport.checkThrows(CharacterCodingException.class,
+                () -> TransactionCsvExporter.exportAccount(account, file, false), "lone surrogate");
+    }
+
+    // RFC 4180 reader: records end at CR or LF outside quotes
+    private static List<List<String>> parse(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        return records;
+    }
+}
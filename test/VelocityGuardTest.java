@@ -0,0 +1,75 @@
+public class VelocityGuardTest {
+
+    public static void main(String[] args) throws Exception {
+        // Read once when the guard is created, so before its first use
+        System.setProperty("bank.velocity.windowSeconds", "1");
+        System.setProperty("bank.velocity.flagCount", "3");
+        System.setProperty("bank.velocity.blockCount", "5");
+        System.setProperty("bank.velocity.flagAmount", "500");
+        System.setProperty("bank.velocity.blockAmount", "1000");
+        TestSupport.run("count thresholds flag then block", VelocityGuardTest::counts);
+        TestSupport.run("amount thresholds flag then block", VelocityGuardTest::amounts);
+        TestSupport.run("released debits leave the window", VelocityGuardTest::release);
+        TestSupport.run("window slides past old debits", VelocityGuardTest::slides);
+        TestSupport.run("withdrawals are refused over the limit", VelocityGuardTest::withdrawals);
+    }
+
+    static void counts() {
+        VelocityGuard guard = VelocityGuard.get();
+        VelocityGuard.Decision[] expected = {
+            VelocityGuard.Decision.ALLOW, VelocityGuard.Decision.ALLOW, VelocityGuard.Decision.ALLOW,
+            VelocityGuard.Decision.FLAG, VelocityGuard.Decision.FLAG,
+            VelocityGuard.Decision.BLOCK, VelocityGuard.Decision.BLOCK
+        };
+        for (int i = 0; i < expected.length; i++) {
+            TestSupport.checkEquals(expected[i], guard.admit("counts", 1), "debit " + (i + 1));
+        }
+        TestSupport.check(guard.wouldBlock("counts", 1), "still blocked: blocked debits are not counted in");
+    }
+
+    static void amounts() {
+        VelocityGuard guard = VelocityGuard.get();
+        TestSupport.checkEquals(VelocityGuard.Decision.ALLOW, guard.admit("amounts", 400), "400");
+        TestSupport.checkEquals(VelocityGuard.Decision.FLAG, guard.admit("amounts", 400), "800");
+        TestSupport.checkEquals(VelocityGuard.Decision.BLOCK, guard.admit("amounts", 300), "1100");
+        TestSupport.checkEquals(VelocityGuard.Decision.FLAG, guard.admit("amounts", 200), "1000 is not over");
+    }
+
+    static void release() {
+        VelocityGuard guard = VelocityGuard.get();
+        for (int i = 0; i < 5; i++) {
+            guard.admit("release", 100);
+        }
+        TestSupport.check(guard.wouldBlock("release", 1), "full window");
+        guard.release("release", 100);
+        TestSupport.check(!guard.wouldBlock("release", 1), "released slot");
+        TestSupport.check(guard.wouldBlock("release", 601), "amount still counts the rest");
+    }
+
+    static void slides() throws InterruptedException {
+        VelocityGuard guard = VelocityGuard.get();
+        for (int i = 0; i < 5; i++) {
+            guard.admit("slides", 1);
+        }
+        TestSupport.checkEquals(VelocityGuard.Decision.BLOCK, guard.admit("slides", 1), "full window");
+        Thread.sleep(1200);
+        TestSupport.checkEquals(VelocityGuard.Decision.ALLOW, guard.admit("slides", 1), "after the window");
+    }
+
+    static void withdrawals() {
+        BankSystem bankSystem = new BankSystem();
+        BankAccount account = bankSystem.getAccount(bankSystem.registerAccount("w", "a", "p", 50, "pw"));
+        // Refused for insufficient funds, so handed back to the window
+        for (int i = 0; i < 10; i++) {
+            TestSupport.checkEquals(BankAccount.WithdrawalResult.INSUFFICIENT_FUNDS,
+                    account.tryWithdraw("Withdrawal", 100, null), "overdraft " + i);
+        }
+        for (int i = 0; i < 5; i++) {
+            TestSupport.checkEquals(BankAccount.WithdrawalResult.COMPLETED,
+                    account.tryWithdraw("Withdrawal", 1, null), "withdrawal " + i);
+        }
+        TestSupport.checkEquals(BankAccount.WithdrawalResult.LIMIT_EXCEEDED,
+                account.tryWithdraw("Withdrawal", 1, null), "sixth withdrawal");
+        TestSupport.checkClose(45, account.getBalance(), "balance");
+    }
+}
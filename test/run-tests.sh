@@ -0,0 +1,31 @@
+#!/bin/sh
+# Compiles the engine and the tests, then runs each *Test class in its own JVM with a
+# scratch data file, since BankSystem reads its file locations once per JVM.
+# The Swing front end, the PDF writer and the JMH benchmark need third-party jars and
+# are left out; the tests cover the engine only.
+#
+#   test/run-tests.sh [TestClass...]
+set -e
+cd "$(dirname "$0")/.."
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+javac -Xlint:all -d "$out" $(ls *.java | grep -v -e ModernBankingApp -e StatementPdfWriter -e BankBenchmark) test/*.java
+
+if [ $# -gt 0 ]; then
+    tests="$*"
+else
+    tests=$(cd test && ls *Test.java | sed 's/\.java$//')
+fi
+failed=0
+for test in $tests; do
+    data=$(mktemp -d)
+    echo "$test"
+    if ! java -ea -cp "$out" -Dbank.dataFile="$data/bank_data.dat" "$test"; then
+        failed=$((failed + 1))
+    fi
+    rm -rf "$data"
+done
+if [ $failed -gt 0 ]; then
+    echo "$failed test class(es) failed"
+    exit 1
+fi